@@ -0,0 +1,195 @@
+package conwaygame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that every engine steps exactly like the SCALAR path in GameOfLife.
+ *
+ * Random boards of awkward sizes (single rows and columns, widths around 64, sides that aren't powers
+ * of two) and densities are run for both boundaries under several rules. Each one runs on every
+ * EngineMode, on SCALAR with several threads, and on the tiled engines with tiles small enough that
+ * a board has many of them. Every generation is compared cell by cell, together with the alive count,
+ * isAlive() and, now and then, numOfCommunities(). BatchRunner's final population is checked at the end.
+ *
+ * Combinations an engine refuses (HASHLIFE with Boundary.DEAD, B0 rules on HASHLIFE and SPARSE) are
+ * skipped, and so is UNBOUNDED, which has no edges to compare against.
+ *
+ * Compile it along with src and run it. It exits with status 1 if anything differs:
+ *   javac -d bin src/conwaygame/*.java src-test/conwaygame/*.java
+ *   java -cp bin conwaygame.EngineCheck
+ */
+
+public class EngineCheck {
+
+    private static final String[] RULES = { "B3/S23" , "B36/S23" , "B3678/S34678" , "B2/S" , "B1357/S1357" , "B3/S012345678" , "B0/S8" };
+    private static final int[][] SIZES = { { 1 , 1 } , { 2 , 2 } , { 3 , 4 } , { 1 , 70 } , { 70 , 1 } , { 8 , 63 } , { 9 , 64 } ,
+                                           { 10 , 65 } , { 16 , 16 } , { 17 , 130 } , { 33 , 128 } , { 37 , 53 } , { 64 , 64 } };
+    private static final double[] DENSITIES = { 0.1 , 0.35 , 0.6 };
+    private static final int STEPS = 24; // Every third step is nextGeneration( 5 ), the others nextGeneration()
+    private static final int MAX_REPORTED = 20;
+
+    private static int boards;
+    private static int failures;
+
+    public static void main( String[] args ) throws IOException {
+        Random random = new Random( 1 );
+        BatchRunner batch = new BatchRunner();
+        try {
+            for ( String notation : RULES ){
+                Rule rule = Rule.parse( notation );
+                for ( Boundary boundary : Boundary.values() ){
+                    for ( int[] size : SIZES ){
+                        for ( double density : DENSITIES ){
+                            check( randomBoard( random , size[ 0 ] , size[ 1 ] , density ) , boundary , rule , batch );
+                        }
+                    }
+                }
+            }
+        } finally {
+            batch.shutdown();
+        }
+
+        System.out.println( boards + " boards, " + failures + " failures" );
+        if ( failures > 0 ) {
+            System.exit( 1 );
+        }
+    }
+
+    // Runs board on every engine next to SCALAR and reports each engine the first time it differs
+
+    private static void check( boolean[][] board , Boundary boundary , Rule rule , BatchRunner batch ) throws IOException {
+        boards++;
+        String file = write( board );
+        String what = rule + " " + boundary + " " + board.length + "x" + board[ 0 ].length;
+
+        GameOfLife reference = newGame( file , boundary , rule );
+        List<String> names = new ArrayList<>();
+        List<GameOfLife> games = new ArrayList<>();
+        for ( EngineMode mode : EngineMode.values() ){
+            if ( mode == EngineMode.SCALAR || mode == EngineMode.UNBOUNDED ) {
+                continue;
+            }
+            GameOfLife game = newGame( file , boundary , rule );
+            try {
+                game.setEngineMode( mode );
+            } catch ( IllegalArgumentException e ) {
+                game.close();
+                continue; // The engine doesn't run this rule or boundary
+            }
+            names.add( mode.toString() );
+            games.add( game );
+        }
+        GameOfLife threads = newGame( file , boundary , rule );
+        threads.setParallelism( 3 );
+        names.add( "SCALAR x3 threads" );
+        games.add( threads );
+
+        List<String> engineNames = new ArrayList<>();
+        List<LifeEngine> engines = new ArrayList<>();
+        engineNames.add( "PhaserTileEngine 5x5 tiles" );
+        engines.add( new PhaserTileEngine( board , boundary , rule , 5 ) );
+        engineNames.add( "TiledEngine 5x5 tiles" );
+        engines.add( new TiledEngine( board , 5 , boundary , rule ) );
+
+        int generations = 0;
+        for ( int step = 0; step < STEPS; step++ ){
+            int n = step % 3 == 2 ? 5 : 1;
+            generations += n;
+            reference.nextGeneration( n );
+            boolean[][] expected = reference.getGrid();
+            int alive = reference.getTotalAliveCells();
+            int communities = step % 8 == 0 ? reference.numOfCommunities() : -1;
+
+            for ( int k = games.size() - 1; k >= 0; k-- ){
+                GameOfLife game = games.get( k );
+                game.nextGeneration( n );
+                String problem = !Arrays.deepEquals( expected , game.getGrid() ) ? "different cells"
+                               : game.getTotalAliveCells() != alive ? "alive count " + game.getTotalAliveCells() + " instead of " + alive
+                               : game.isAlive() != ( alive > 0 ) ? "isAlive() is " + game.isAlive()
+                               : communities >= 0 && game.numOfCommunities() != communities ? "numOfCommunities() is wrong"
+                               : null;
+                if ( problem != null ) {
+                    fail( names.get( k ) , what , generations , problem );
+                    game.close();
+                    games.remove( k );
+                    names.remove( k );
+                }
+            }
+            for ( int k = engines.size() - 1; k >= 0; k-- ){
+                LifeEngine engine = engines.get( k );
+                engine.step( n );
+                String problem = !Arrays.deepEquals( expected , engine.toGrid() ) ? "different cells"
+                               : engine.getTotalAliveCells() != alive ? "alive count " + engine.getTotalAliveCells() + " instead of " + alive
+                               : null;
+                if ( problem != null ) {
+                    fail( engineNames.get( k ) , what , generations , problem );
+                    engine.close();
+                    engines.remove( k );
+                    engineNames.remove( k );
+                }
+            }
+        }
+
+        BatchRunner.Result result = batch.run( Collections.singletonList( board ) , generations , boundary , rule ).get( 0 );
+        if ( result.finalPopulation != reference.getTotalAliveCells() ) {
+            fail( "BatchRunner" , what , generations , "final population " + result.finalPopulation + " instead of " + reference.getTotalAliveCells() );
+        }
+
+        reference.close();
+        for ( GameOfLife game : games ){
+            game.close();
+        }
+        for ( LifeEngine engine : engines ){
+            engine.close();
+        }
+    }
+
+    private static GameOfLife newGame( String file , Boundary boundary , Rule rule ) {
+        GameOfLife game = new GameOfLife( file );
+        game.setBoundary( boundary );
+        game.setRule( rule );
+        return game;
+    }
+
+    private static void fail( String engine , String what , int generation , String problem ) {
+        failures++;
+        if ( failures <= MAX_REPORTED ) {
+            System.out.println( "FAIL " + engine + " on " + what + " at generation " + generation + ": " + problem );
+        }
+    }
+
+    private static boolean[][] randomBoard( Random random , int rows , int cols , double density ) {
+        boolean[][] board = new boolean[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                board[ i ][ j ] = random.nextDouble() < density;
+            }
+        }
+        return board;
+    }
+
+    // Writes board in the format GameOfLife( file ) reads, to a file deleted when the check exits
+
+    private static String write( boolean[][] board ) throws IOException {
+        File file = File.createTempFile( "board" , ".txt" );
+        file.deleteOnExit();
+        try ( PrintWriter out = new PrintWriter( file ) ) {
+            out.println( board.length + " " + board[ 0 ].length );
+            for ( boolean[] row : board ){
+                StringBuilder line = new StringBuilder();
+                for ( boolean cell : row ){
+                    line.append( cell ).append( ' ' );
+                }
+                out.println( line );
+            }
+        }
+        return file.getPath();
+    }
+}
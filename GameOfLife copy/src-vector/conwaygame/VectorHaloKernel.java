@@ -0,0 +1,82 @@
+package conwaygame;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * HaloKernel written with the Vector API, one full vector of cells per iteration.
+ *
+ * Every cell is one byte, so the eight neighbor sums are plain lane-wise byte adds of
+ * shifted loads (at most 8, no overflow). Under Conway's rule a cell is alive next generation
+ * exactly when ( neighbors | alive ) == 3, which is one compare for the whole vector. Other
+ * rules compare the sum against each of their birth and survival counts.
+ *
+ * Compile and run with --add-modules jdk.incubator.vector, for example
+ *   javac --add-modules jdk.incubator.vector -d bin src/conwaygame/*.java src-vector/conwaygame/*.java
+ */
+
+class VectorHaloKernel implements HaloKernel {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    public int stepRow( byte[] cells , byte[] out , int start , int end , int stride , Rule rule ) {
+        int k = start;
+        int count = 0;
+
+        // Conway's rule gets its own loop so its single compare isn't held up by the general one
+
+        if ( rule.isConway() ) {
+            for ( ; k + SPECIES.length() <= end; k += SPECIES.length() ){
+                VectorMask<Byte> next = neighbors( cells , k , stride ).or( ByteVector.fromArray( SPECIES , cells , k ) ).eq( ( byte ) 3 );
+                ByteVector.zero( SPECIES ).blend( ( byte ) 1 , next ).intoArray( out , k );
+                count += next.trueCount();
+            }
+        } else {
+            int birth = rule.getBirthMask();
+            int survival = rule.getSurvivalMask();
+            for ( ; k + SPECIES.length() <= end; k += SPECIES.length() ){
+                VectorMask<Byte> next = apply( neighbors( cells , k , stride ) , ByteVector.fromArray( SPECIES , cells , k ) , birth , survival );
+                ByteVector.zero( SPECIES ).blend( ( byte ) 1 , next ).intoArray( out , k );
+                count += next.trueCount();
+            }
+        }
+
+        // Whatever is left of the row doesn't fill a vector
+
+        return count + HaloEngine.stepRow( cells , out , k , end , stride , rule );
+    }
+
+    // Number of alive neighbors of the cells k..k + SPECIES.length() - 1
+
+    private static ByteVector neighbors( byte[] cells , int k , int stride ) {
+        return ByteVector.fromArray( SPECIES , cells , k - stride - 1 )
+            .add( ByteVector.fromArray( SPECIES , cells , k - stride ) )
+            .add( ByteVector.fromArray( SPECIES , cells , k - stride + 1 ) )
+            .add( ByteVector.fromArray( SPECIES , cells , k - 1 ) )
+            .add( ByteVector.fromArray( SPECIES , cells , k + 1 ) )
+            .add( ByteVector.fromArray( SPECIES , cells , k + stride - 1 ) )
+            .add( ByteVector.fromArray( SPECIES , cells , k + stride ) )
+            .add( ByteVector.fromArray( SPECIES , cells , k + stride + 1 ) );
+    }
+
+    // Lanes that are alive next generation for a rule given as birth and survival masks
+
+    private static VectorMask<Byte> apply( ByteVector sum , ByteVector alive , int birth , int survival ) {
+        VectorMask<Byte> isAlive = alive.eq( ( byte ) 1 );
+        VectorMask<Byte> born = SPECIES.maskAll( false );
+        VectorMask<Byte> survives = SPECIES.maskAll( false );
+        for ( int n = 0; n <= 8; n++ ){
+            if ( ( ( birth | survival ) >>> n & 1 ) != 0 ) {
+                VectorMask<Byte> equal = sum.eq( ( byte ) n );
+                if ( ( birth >>> n & 1 ) != 0 ) {
+                    born = born.or( equal );
+                }
+                if ( ( survival >>> n & 1 ) != 0 ) {
+                    survives = survives.or( equal );
+                }
+            }
+        }
+        return born.andNot( isAlive ).or( survives.and( isAlive ) );
+    }
+}
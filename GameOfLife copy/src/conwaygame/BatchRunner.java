@@ -0,0 +1,208 @@
+package conwaygame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs many independent small boards (parameter studies, like grid0.txt - grid8.txt) as fast as possible.
+ *
+ * Boards are spread over a ForkJoinPool: the list is split in halves down to single boards, so a
+ * thread that runs out of boards steals half of someone else's remaining range. Each board is stepped
+ * bit-packed with BitKernel on its own thread, with nothing shared between boards.
+ *
+ * Besides the final population each board reports the generation it died out (if it did) and its
+ * period once it settles into a cycle. Cycles are found with Brent's algorithm: a copy of the board is
+ * saved with the gaps between saves doubling (generations 0, 1, 3, 7, 15, ...) and every generation is
+ * compared with it, which finds the exact period with only one saved copy. Once the period is known the run skips straight to the last
+ * generation (the rest is just going around the cycle), so boards that settle early cost almost nothing.
+ *
+ * Usage: java conwaygame.BatchRunner generations file1 file2 ...
+ */
+
+public class BatchRunner {
+
+    /**
+     * What happened to one board.
+     */
+
+    public static final class Result {
+
+        public final int finalPopulation; // Alive cells after all the generations
+        public final int extinctionGeneration; // First generation with no alive cells, -1 if it never died out
+        public final int period; // Period of the cycle the board ended in, 1 for still lifes, 0 if none was found
+
+        Result( int finalPopulation , int extinctionGeneration , int period ) {
+            this.finalPopulation = finalPopulation;
+            this.extinctionGeneration = extinctionGeneration;
+            this.period = period;
+        }
+
+        public String toString() {
+            return "population=" + finalPopulation + " extinct=" + extinctionGeneration + " period=" + period;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private double boardsPerSecond;
+
+    // Runs on all cores
+
+    public BatchRunner() {
+        this( Runtime.getRuntime().availableProcessors() );
+    }
+
+    public BatchRunner( int threads ) {
+        pool = new ForkJoinPool( threads );
+    }
+
+    /**
+     * Runs every board for the given number of generations.
+     * @return List<Result> results in the same order as boards
+     */
+
+    public List<Result> run( List<boolean[][]> boards , int generations , Boundary boundary , Rule rule ) {
+        Result[] results = new Result[ boards.size() ];
+        long start = System.nanoTime();
+        if ( !boards.isEmpty() ) {
+            pool.invoke( new BatchTask( boards , results , 0 , boards.size() , generations , boundary , rule ) );
+        }
+        boardsPerSecond = boards.size() / ( ( System.nanoTime() - start ) / 1e9 );
+        return Arrays.asList( results );
+    }
+
+    // Returns the number of boards per second the last run() finished
+
+    public double getBoardsPerSecond() {
+        return boardsPerSecond;
+    }
+
+    // Stops the worker threads
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static class BatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<boolean[][]> boards;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+        private final int generations;
+        private final Boundary boundary;
+        private final Rule rule;
+
+        BatchTask( List<boolean[][]> boards , Result[] results , int from , int to , int generations , Boundary boundary , Rule rule ) {
+            this.boards = boards;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.generations = generations;
+            this.boundary = boundary;
+            this.rule = rule;
+        }
+
+        protected void compute() {
+            if ( to - from == 1 ) {
+                results[ from ] = runBoard( boards.get( from ) , generations , boundary == Boundary.TORUS , rule );
+                return;
+            }
+            int middle = ( from + to ) >>> 1;
+            invokeAll( new BatchTask( boards , results , from , middle , generations , boundary , rule ) ,
+                       new BatchTask( boards , results , middle , to , generations , boundary , rule ) );
+        }
+    }
+
+    // Steps one board, watching for extinction and cycles
+
+    private static Result runBoard( boolean[][] grid , int generations , boolean torus , Rule rule ) {
+        int rows = grid.length;
+        int cols = grid[ 0 ].length;
+        int words = ( cols + 63 ) >>> 6;
+        long[][] current = new long[ rows ][ words ];
+        long[][] next = new long[ rows ][ words ];
+        long[][] saved = new long[ rows ][ words ]; // Brent's tortoise
+        long[] deadRow = new long[ words ];
+
+        int population = 0;
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                if ( grid[ i ][ j ] ) {
+                    current[ i ][ j >>> 6 ] |= 1L << j;
+                    population++;
+                }
+            }
+        }
+
+        int extinction = population == 0 ? 0 : -1;
+        int period = 0;
+        copy( current , saved );
+        int power = 1;
+        int distance = 0; // Generations since saved was taken
+
+        for ( int g = 1; g <= generations; g++ ){
+            population = BitKernel.stepBoard( current , next , cols , torus , rule , deadRow );
+            long[][] temp = current;
+            current = next;
+            next = temp;
+
+            if ( population == 0 && extinction < 0 ) {
+                extinction = g;
+            }
+
+            distance++;
+            if ( Arrays.deepEquals( current , saved ) ) {
+
+                // Back where we were distance generations ago: only ( generations - g ) % distance steps change anything
+
+                period = distance;
+                int remaining = ( generations - g ) % period;
+                for ( int s = 0; s < remaining; s++ ){
+                    population = BitKernel.stepBoard( current , next , cols , torus , rule , deadRow );
+                    temp = current;
+                    current = next;
+                    next = temp;
+                }
+                break;
+            }
+            if ( distance == power ) {
+                copy( current , saved );
+                power *= 2;
+                distance = 0;
+            }
+        }
+
+        return new Result( population , extinction , period );
+    }
+
+    private static void copy( long[][] from , long[][] to ) {
+        for ( int i = 0; i < from.length; i++ ){
+            System.arraycopy( from[ i ] , 0 , to[ i ] , 0 , from[ i ].length );
+        }
+    }
+
+    public static void main( String[] args ) {
+        if ( args.length < 2 ) {
+            System.err.println( "Usage: java conwaygame.BatchRunner generations file1 file2 ..." );
+            System.exit( 1 );
+        }
+        int generations = Integer.parseInt( args[ 0 ] );
+        List<boolean[][]> boards = new ArrayList<>();
+        for ( int i = 1; i < args.length; i++ ){
+            boards.add( new GameOfLife( args[ i ] ).getGrid() );
+        }
+
+        BatchRunner runner = new BatchRunner();
+        List<Result> results = runner.run( boards , generations , Boundary.TORUS , Rule.CONWAY );
+        for ( int i = 0; i < results.size(); i++ ){
+            System.out.println( args[ i + 1 ] + ": " + results.get( i ) );
+        }
+        System.out.printf( "%d boards, %.1f boards/s%n" , boards.size() , runner.getBoardsPerSecond() );
+        runner.shutdown();
+    }
+}
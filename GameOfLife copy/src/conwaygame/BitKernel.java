@@ -0,0 +1,112 @@
+package conwaygame;
+/*
+ * Bitwise kernel shared by the bit-packed engines.
+ *
+ * A row is a long[] where bit i of word k is column 64k + i. Instead of counting the
+ * neighbors of one cell at a time, the eight neighbor words are added together with
+ * full adders so that all 64 cells of a word get their next state in a handful of
+ * AND/OR/XOR instructions.
+ */
+final class BitKernel {
+
+    private BitKernel() {
+    }
+
+    /**
+     * Computes the next state of 64 cells from the word c holding them and the eight
+     * words holding their northwest, north, ..., southeast neighbors.
+     * 
+     * @return long word with the next generation of those 64 cells
+     */
+
+    static long step( long nw , long n , long ne , long w , long c , long e , long sw , long s , long se , Rule rule ) {
+
+        // Add each row of three (or two for the middle row) into a ones bit and a twos bit
+
+        long topOnes = nw ^ n ^ ne;
+        long topTwos = ( nw & n ) | ( ne & ( nw ^ n ) );
+        long bottomOnes = sw ^ s ^ se;
+        long bottomTwos = ( sw & s ) | ( se & ( sw ^ s ) );
+        long middleOnes = w ^ e;
+        long middleTwos = w & e;
+
+        // Add the three partial sums together, the total fits in ones/twos/fours/eights
+
+        long ones = topOnes ^ bottomOnes ^ middleOnes;
+        long onesCarry = ( topOnes & bottomOnes ) | ( middleOnes & ( topOnes ^ bottomOnes ) );
+        long twosSum = topTwos ^ bottomTwos ^ middleTwos;
+        long twosCarry = ( topTwos & bottomTwos ) | ( middleTwos & ( topTwos ^ bottomTwos ) );
+        long twos = twosSum ^ onesCarry;
+        long foursCarry = twosSum & onesCarry;
+        long fours = twosCarry ^ foursCarry;
+        long eights = twosCarry & foursCarry;
+
+        return rule.apply( ones , twos , fours , eights , c );
+    }
+
+    /**
+     * Computes one row of the next generation from the row above it, the row itself and the row below it.
+     * The left and right edges wrap around like the torus in GameOfLife unless torus is false,
+     * then the cells past them are dead.
+     * 
+     * @return int number of alive cells in the new row
+     */
+
+    static int stepRow( long[] up , long[] row , long[] down , long[] out , int width , boolean torus , Rule rule ) {
+        int last = row.length - 1;
+        int lastBit = ( width - 1 ) & 63;
+        long lastMask = -1L >>> ( 63 - lastBit );
+        int count = 0;
+
+        for ( int k = 0; k <= last; k++ ){
+            long word = step( west( up , k , lastBit , torus ) , up[ k ] , east( up , k , lastBit , torus ) ,
+                              west( row , k , lastBit , torus ) , row[ k ] , east( row , k , lastBit , torus ) ,
+                              west( down , k , lastBit , torus ) , down[ k ] , east( down , k , lastBit , torus ) , rule );
+            if ( k == last ) {
+                word &= lastMask;
+            }
+            out[ k ] = word;
+            count += Long.bitCount( word );
+        }
+        return count;
+    }
+
+    /**
+     * Computes the whole next generation of the rows in current into next. The top and bottom rows wrap
+     * around like the left and right edges unless torus is false, then deadRow (all zero) stands in for
+     * the rows past them.
+     * 
+     * @return int number of alive cells in next
+     */
+
+    static int stepBoard( long[][] current , long[][] next , int width , boolean torus , Rule rule , long[] deadRow ) {
+        int rows = current.length;
+        int count = 0;
+        for ( int i = 0; i < rows; i++ ){
+            long[] up = i > 0 ? current[ i - 1 ] : torus ? current[ rows - 1 ] : deadRow;
+            long[] down = i < rows - 1 ? current[ i + 1 ] : torus ? current[ 0 ] : deadRow;
+            count += stepRow( up , current[ i ] , down , next[ i ] , width , torus , rule );
+        }
+        return count;
+    }
+
+    // Returns word k of the row shifted so that bit i holds the cell to the west of column 64k + i
+
+    static long west( long[] row , int k , int lastBit , boolean torus ) {
+        if ( k == 0 && !torus ) {
+            return row[ k ] << 1;
+        }
+        long carry = k == 0 ? row[ row.length - 1 ] >>> lastBit : row[ k - 1 ] >>> 63;
+        return ( row[ k ] << 1 ) | ( carry & 1L );
+    }
+
+    // Returns word k of the row shifted so that bit i holds the cell to the east of column 64k + i
+
+    static long east( long[] row , int k , int lastBit , boolean torus ) {
+        if ( k == row.length - 1 ) {
+            long carry = torus ? row[ 0 ] & 1L : 0L;
+            return ( row[ k ] >>> 1 ) | ( carry << lastBit );
+        }
+        return ( row[ k ] >>> 1 ) | ( row[ k + 1 ] << 63 );
+    }
+}
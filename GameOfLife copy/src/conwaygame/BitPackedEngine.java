@@ -0,0 +1,72 @@
+package conwaygame;
+/*
+ * Engine that keeps every row of the board as a long[] bitset (one bit per cell).
+ *
+ * Each generation is computed 64 cells at a time by BitKernel, so a 16k x 16k board
+ * costs about 4 million word operations per row sweep instead of 256 million
+ * calls to numOfAliveNeighbors. Two sets of rows are allocated up front and swapped
+ * after every generation. With Boundary.DEAD the rows above the first and below the last
+ * are an all dead row and BitKernel doesn't wrap the columns.
+ */
+public class BitPackedEngine implements LifeEngine {
+
+    private final int rows;
+    private final int cols;
+    private long[][] current; // The current generation, bit (col & 63) of word (col >>> 6)
+    private long[][] next; // Scratch rows the next generation is written into
+    private int totalAliveCells;
+    private final boolean torus;
+    private final long[] deadRow; // Stands in for the rows past the top and bottom edges with Boundary.DEAD
+    private final Rule rule;
+
+    public BitPackedEngine( boolean[][] grid ) {
+        this( grid , Boundary.TORUS , Rule.CONWAY );
+    }
+
+    public BitPackedEngine( boolean[][] grid , Boundary boundary , Rule rule ) {
+        this.rule = rule;
+        torus = boundary == Boundary.TORUS;
+        rows = grid.length;
+        cols = grid[ 0 ].length;
+        int words = ( cols + 63 ) >>> 6;
+        current = new long[ rows ][ words ];
+        next = new long[ rows ][ words ];
+        deadRow = new long[ words ];
+
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                if ( grid[ i ][ j ] ) {
+                    current[ i ][ j >>> 6 ] |= 1L << j;
+                    totalAliveCells++;
+                }
+            }
+        }
+    }
+
+    public void step() {
+        int count = BitKernel.stepBoard( current , next , cols , torus , rule , deadRow );
+
+        long[][] temp = current;
+        current = next;
+        next = temp;
+        totalAliveCells = count;
+    }
+
+    public boolean getCell( int row , int col ) {
+        return ( ( current[ row ][ col >>> 6 ] >>> col ) & 1L ) != 0;
+    }
+
+    public int getTotalAliveCells() {
+        return totalAliveCells;
+    }
+
+    public boolean[][] toGrid() {
+        boolean[][] grid = new boolean[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                grid[ i ][ j ] = getCell( i , j );
+            }
+        }
+        return grid;
+    }
+}
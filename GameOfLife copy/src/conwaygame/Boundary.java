@@ -0,0 +1,10 @@
+package conwaygame;
+/*
+ * Enum class for what lies past the edges of the board.
+ *
+ * TORUS: the board wraps around, the cell west of column 0 is the last column and so on.
+ * DEAD: every cell outside the board is always DEAD.
+ */
+public enum Boundary {
+    TORUS, DEAD;
+}
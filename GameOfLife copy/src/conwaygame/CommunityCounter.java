@@ -0,0 +1,290 @@
+package conwaygame;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the communities for GameOfLife.numOfCommunities(), on one thread or many.
+ *
+ * The board is cut into bands of whole rows (so the left and right edges of a torus stay inside a band),
+ * a single band when there is no pool. Each band is labeled in one pass that labels every alive cell from
+ * the cells to its west, northwest, north and northeast (the other four neighbors label it from their side):
+ * it takes north's label if north is alive, since the other three touch north and were joined with it
+ * already, otherwise it joins northeast with west or northwest, and only a cell with none of them alive
+ * gets a new label. Only the labels of the row above, this row and the band's first row are kept. Whenever
+ * the band's union-find holds more than a few rows of labels, the ones still in use are renumbered from 0,
+ * one per community, and it starts over with just those, so memory stays at a few rows however big the
+ * board is.
+ *
+ * Only a band's first and last rows can touch another band, so each band then hands over those two rows:
+ * every alive cell in them gets a site in one shared union-find, linked to the first of them that is in the
+ * same community. Finally the seams between neighboring bands (and between the last band and the first on
+ * a torus, which for a single band is its last row and its first) are joined in parallel with
+ * unionConcurrent(). Every join of two different communities makes one less, so the answer is the sum of
+ * the bands' counts minus those joins.
+ */
+
+class CommunityCounter {
+
+    private final boolean[][] grid;
+    private final boolean torus;
+    private final int cols;
+    private final int bandRows;
+    private final int bands;
+    private final WeightedQuickUnionUF seams; // Sites b * 2 * cols + j for band b's first row, + cols + j for its last
+
+    private CommunityCounter( boolean[][] grid , boolean torus , int bandRows ) {
+        this.grid = grid;
+        this.torus = torus;
+        cols = grid[ 0 ].length;
+        this.bandRows = bandRows;
+        bands = ( grid.length + bandRows - 1 ) / bandRows;
+        seams = new WeightedQuickUnionUF( bands * 2 * cols );
+    }
+
+    /**
+     * Returns the number of communities on grid, stepping the bands and seams on pool,
+     * or labeling it as one band on the calling thread if pool is null.
+     */
+
+    static int count( boolean[][] grid , Boundary boundary , ForkJoinPool pool , int parallelism ) {
+        int rows = grid.length;
+        int perThread = ( rows + 4 * parallelism - 1 ) / ( 4 * parallelism ); // At least four bands per thread to steal
+        CommunityCounter counter = new CommunityCounter( grid , boundary == Boundary.TORUS , pool == null ? rows : perThread );
+        int communities = invoke( pool , counter.new BandTask( 0 , counter.bands ) );
+        int seamCount = counter.torus ? counter.bands : counter.bands - 1;
+        if ( seamCount > 0 ) {
+            communities -= invoke( pool , counter.new SeamTask( 0 , seamCount ) );
+        }
+        return communities;
+    }
+
+    // Runs task on pool, or on the calling thread if there is none
+
+    private static int invoke( ForkJoinPool pool , RecursiveTask<Integer> task ) {
+        return pool == null ? task.invoke() : pool.invoke( task );
+    }
+
+    /**
+     * Labels bands from..to - 1, splitting the range in half down to single bands.
+     * Returns the number of communities inside them, counted as if the bands didn't touch.
+     */
+
+    private class BandTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        BandTask( int from , int to ) {
+            this.from = from;
+            this.to = to;
+        }
+
+        protected Integer compute() {
+            if ( to - from == 1 ) {
+                return labelBand( from );
+            }
+            int middle = ( from + to ) >>> 1;
+            BandTask first = new BandTask( from , middle );
+            first.fork();
+            int second = new BandTask( middle , to ).compute();
+            return first.join() + second;
+        }
+    }
+
+    /**
+     * Joins seams from..to - 1, seam b being the one between band b and the band below it.
+     * Returns the number of joins that merged two communities.
+     */
+
+    private class SeamTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        SeamTask( int from , int to ) {
+            this.from = from;
+            this.to = to;
+        }
+
+        protected Integer compute() {
+            if ( to - from == 1 ) {
+                return joinSeam( from );
+            }
+            int middle = ( from + to ) >>> 1;
+            SeamTask first = new SeamTask( from , middle );
+            first.fork();
+            int second = new SeamTask( middle , to ).compute();
+            return first.join() + second;
+        }
+    }
+
+    // Labels one band on its own, links its first and last rows' alive cells in seams and returns its community count
+
+    private int labelBand( int band ) {
+        int start = band * bandRows;
+        int height = Math.min( bandRows , grid.length - start );
+
+        // Labels are -1 for dead cells, cell j is at j + 1 so both ends have a dead cell next to them
+
+        WeightedQuickUnionUF uf = new WeightedQuickUnionUF( 0 );
+        int[] above = new int[ cols + 2 ];
+        int[] labels = new int[ cols + 2 ];
+        Arrays.fill( above , -1 );
+        labels[ 0 ] = labels[ cols + 1 ] = -1;
+        int[] firstRow = null;
+        int[] renumbered = new int[ 5 * cols + 4 ]; // New label of each root, by old label
+        int communities = 0;
+
+        for ( int i = 0; i < height; i++ ){
+            communities += labelRow( uf , grid[ start + i ] , above , labels );
+            if ( torus ) {
+                communities -= joinSides( uf , labels , above , i > 0 );
+            }
+            if ( i == 0 ) {
+                firstRow = labels.clone();
+            }
+
+            // The rows above are done with, so only this row and the first still need labels
+
+            if ( uf.sites() > 4 * cols ) {
+                Arrays.fill( renumbered , 0 , uf.sites() , -1 );
+                int next = renumber( uf , labels , renumbered , 0 );
+                next = renumber( uf , firstRow , renumbered , next );
+                uf.reset( next );
+            }
+
+            int[] temp = above;
+            above = labels;
+            labels = temp;
+        }
+
+        // Hand over the first and last rows: each alive cell's seam site joins the first one from its community
+
+        int[] firstSite = new int[ uf.sites() ]; // Seam site + 1 of the first cell handed over per root
+        handOver( uf , firstRow , band * 2 * cols , firstSite );
+        handOver( uf , above , band * 2 * cols + cols , firstSite );
+        return communities;
+    }
+
+    // Gives each alive cell of labels the seam site base + column, joined with the first handed over from its community
+
+    private void handOver( WeightedQuickUnionUF uf , int[] labels , int base , int[] firstSite ) {
+        for ( int j = 1; j <= cols; j++ ){
+            if ( labels[ j ] < 0 ) {
+                continue;
+            }
+            int root = uf.find( labels[ j ] );
+            if ( firstSite[ root ] == 0 ) {
+                firstSite[ root ] = base + j;
+            } else {
+                seams.union( base + j - 1 , firstSite[ root ] - 1 ); // Only this band's sites, no other thread touches them
+            }
+        }
+    }
+
+    // Labels the alive cells of row from the row above and each other. Returns the number of new labels less the joins that merged two communities.
+
+    private static int labelRow( WeightedQuickUnionUF uf , boolean[] row , int[] above , int[] labels ) {
+        int change = 0;
+        int west = -1;
+        for ( int j = 1; j <= row.length; j++ ){
+            if ( !row[ j - 1 ] ) {
+                labels[ j ] = west = -1;
+                continue;
+            }
+            int label = above[ j ];
+            if ( label < 0 ) {
+                int northeast = above[ j + 1 ];
+                int northwest = above[ j - 1 ];
+                if ( northeast >= 0 ) {
+                    label = northeast;
+                    int other = west >= 0 ? west : northwest; // West touches northwest, one join does for both
+                    if ( other >= 0 && other != label && uf.union( label , other ) ) {
+                        change--;
+                    }
+                } else if ( west >= 0 ) {
+                    label = west;
+                } else if ( northwest >= 0 ) {
+                    label = northwest;
+                } else {
+                    label = uf.addSite();
+                    change++;
+                }
+            }
+            labels[ j ] = west = label;
+        }
+        return change;
+    }
+
+    // On a torus: joins the first and last cells of a row with each other and, if there is one, with the other end of the row above
+
+    private static int joinSides( WeightedQuickUnionUF uf , int[] labels , int[] above , boolean hasAbove ) {
+        int c = labels.length - 2;
+        int merges = 0;
+        merges += join( uf , labels[ 1 ] , labels[ c ] );
+        if ( hasAbove ) {
+            merges += join( uf , labels[ 1 ] , above[ c ] );
+            merges += join( uf , labels[ c ] , above[ 1 ] );
+        }
+        return merges;
+    }
+
+    // Joins two labels if both cells are alive, returns 1 if that merged two communities
+
+    private static int join( WeightedQuickUnionUF uf , int label , int other ) {
+        return label >= 0 && other >= 0 && uf.union( label , other ) ? 1 : 0;
+    }
+
+    // Replaces every label by a number for its community, handing out new numbers from next on. Returns the next free one.
+
+    private static int renumber( WeightedQuickUnionUF uf , int[] labels , int[] renumbered , int next ) {
+        for ( int j = 0; j < labels.length; j++ ){
+            int label = labels[ j ];
+            if ( label < 0 ) {
+                continue;
+            }
+            int root = uf.find( label );
+            if ( renumbered[ root ] < 0 ) {
+                renumbered[ root ] = next++;
+            }
+            labels[ j ] = renumbered[ root ];
+        }
+        return next;
+    }
+
+    // Joins the last row of band upper with the first row of the band below it (band 0 below the last one)
+
+    private int joinSeam( int upper ) {
+        int lower = ( upper + 1 ) % bands;
+        boolean[] bottom = grid[ Math.min( ( upper + 1 ) * bandRows , grid.length ) - 1 ];
+        boolean[] top = grid[ lower * bandRows ];
+        int bottomBase = upper * 2 * cols + cols;
+        int topBase = lower * 2 * cols;
+        int merges = 0;
+
+        for ( int j = 0; j < cols; j++ ){
+            if ( !top[ j ] ) {
+                continue;
+            }
+            for ( int col = j - 1; col <= j + 1; col++ ){
+                int c = col;
+                if ( c < 0 || c >= cols ) {
+                    if ( !torus ) {
+                        continue;
+                    }
+                    c = ( c + cols ) % cols;
+                }
+                if ( bottom[ c ] && seams.unionConcurrent( topBase + j , bottomBase + c ) ) {
+                    merges++;
+                }
+            }
+        }
+        return merges;
+    }
+}
@@ -0,0 +1,60 @@
+package conwaygame;
+/*
+ * Enum class for the engines GameOfLife can run on.
+ *
+ * SCALAR is the original cell-by-cell path in GameOfLife itself, every other mode
+ * builds its own LifeEngine from the current grid.
+ */
+public enum EngineMode {
+    SCALAR, BIT_PACKED, HASHLIFE, SPARSE, TILED, HALO, LOOKUP_TABLE, VECTOR, OFF_HEAP, UNBOUNDED, TEMPORAL_BLOCKING, PHASER_TILES;
+
+    // Returns a new engine loaded with grid on a torus, or null for SCALAR
+
+    public LifeEngine create( boolean[][] grid ) {
+        return create( grid , Boundary.TORUS , Rule.CONWAY );
+    }
+
+    // Returns a new engine loaded with grid running Conway's rule, or null for SCALAR
+
+    public LifeEngine create( boolean[][] grid , Boundary boundary ) {
+        return create( grid , boundary , Rule.CONWAY );
+    }
+
+    /**
+     * Returns a new engine loaded with grid running rule, or null for SCALAR.
+     * HASHLIFE only runs on a torus, and UNBOUNDED has no edges so it ignores boundary.
+     * HASHLIFE, SPARSE and UNBOUNDED can't run B0 rules.
+     */
+
+    public LifeEngine create( boolean[][] grid , Boundary boundary , Rule rule ) {
+        switch ( this ) {
+            case BIT_PACKED:
+                return new BitPackedEngine( grid , boundary , rule );
+            case HASHLIFE:
+                if ( boundary != Boundary.TORUS ) {
+                    throw new IllegalArgumentException( "HASHLIFE only supports Boundary.TORUS" );
+                }
+                return new HashLife( grid , rule );
+            case SPARSE:
+                return new SparseEngine( grid , boundary , rule );
+            case TILED:
+                return new TiledEngine( grid , boundary , rule );
+            case HALO:
+                return new HaloEngine( grid , boundary , rule );
+            case LOOKUP_TABLE:
+                return new LookupTableEngine( grid , boundary , rule );
+            case VECTOR:
+                return new HaloEngine( grid , boundary , rule , HaloKernel.vectorOrScalar() );
+            case OFF_HEAP:
+                return new OffHeapEngine( grid , boundary , rule );
+            case UNBOUNDED:
+                return new UnboundedEngine( grid , rule );
+            case TEMPORAL_BLOCKING:
+                return new TemporalBlockingEngine( grid , boundary , rule );
+            case PHASER_TILES:
+                return new PhaserTileEngine( grid , boundary , rule );
+            default:
+                return null;
+        }
+    }
+}
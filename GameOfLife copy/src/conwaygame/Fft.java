@@ -0,0 +1,173 @@
+package conwaygame;
+/*
+ * Complex discrete Fourier transform of one fixed length, in plain Java.
+ *
+ * Power of two lengths use an iterative radix-2 FFT. Any other length n goes through
+ * Bluestein's algorithm, which rewrites the transform as a convolution of length m >= 2n - 1
+ * (a power of two) so it can use the radix-2 one, and is still O(n log n). That way a
+ * convolution over a board of any size wraps exactly like the torus instead of needing padding.
+ *
+ * transform() can be called from many threads at once, each gets its own scratch arrays.
+ */
+final class Fft {
+
+    private final int n;
+    private final int size; // Length of the radix-2 transform: n, or m for Bluestein
+    private final double[] cos; // cos( 2 pi k / size ) for k < size / 2
+    private final double[] sin;
+
+    // Bluestein only: the chirp w_k = exp( -i pi k^2 / n ) and the transform of its conjugate padded to size
+
+    private final double[] chirpRe;
+    private final double[] chirpIm;
+    private final double[] filterRe;
+    private final double[] filterIm;
+
+    private final ThreadLocal<double[][]> scratch;
+
+    Fft( int n ) {
+        if ( n < 1 ) {
+            throw new IllegalArgumentException( "Length must be at least 1: " + n );
+        }
+        this.n = n;
+        boolean powerOfTwo = Integer.bitCount( n ) == 1;
+        size = powerOfTwo ? n : Integer.highestOneBit( 2 * n - 1 ) << 1;
+
+        cos = new double[ size / 2 ];
+        sin = new double[ size / 2 ];
+        for ( int k = 0; k < size / 2; k++ ){
+            double angle = 2 * Math.PI * k / size;
+            cos[ k ] = Math.cos( angle );
+            sin[ k ] = Math.sin( angle );
+        }
+
+        if ( powerOfTwo ) {
+            chirpRe = chirpIm = filterRe = filterIm = null;
+        } else {
+            chirpRe = new double[ n ];
+            chirpIm = new double[ n ];
+            for ( int k = 0; k < n; k++ ){
+
+                // k^2 mod 2n keeps the angle small so it stays accurate for large k
+
+                double angle = Math.PI * ( ( long ) k * k % ( 2L * n ) ) / n;
+                chirpRe[ k ] = Math.cos( angle );
+                chirpIm[ k ] = -Math.sin( angle );
+            }
+            filterRe = new double[ size ];
+            filterIm = new double[ size ];
+            filterRe[ 0 ] = chirpRe[ 0 ];
+            filterIm[ 0 ] = -chirpIm[ 0 ];
+            for ( int k = 1; k < n; k++ ){
+                filterRe[ k ] = filterRe[ size - k ] = chirpRe[ k ];
+                filterIm[ k ] = filterIm[ size - k ] = -chirpIm[ k ];
+            }
+            radix2( filterRe , filterIm );
+        }
+
+        scratch = ThreadLocal.withInitial( () -> new double[][]{ new double[ size ] , new double[ size ] } );
+    }
+
+    int length() {
+        return n;
+    }
+
+    /**
+     * Transforms the n complex values re[ offset + k * stride ] + i im[ offset + k * stride ] in place.
+     * The inverse transform includes the 1 / n scale, so forward then inverse gives back the input.
+     */
+
+    void transform( double[] re , double[] im , int offset , int stride , boolean inverse ) {
+        double[][] buffers = scratch.get();
+        double[] workRe = buffers[ 0 ];
+        double[] workIm = buffers[ 1 ];
+
+        // The inverse is the forward transform of the conjugate, conjugated again
+
+        double sign = inverse ? -1 : 1;
+        for ( int k = 0; k < n; k++ ){
+            workRe[ k ] = re[ offset + k * stride ];
+            workIm[ k ] = sign * im[ offset + k * stride ];
+        }
+
+        if ( chirpRe == null ) {
+            radix2( workRe , workIm );
+        } else {
+            bluestein( workRe , workIm );
+        }
+
+        double scale = inverse ? 1.0 / n : 1.0;
+        for ( int k = 0; k < n; k++ ){
+            re[ offset + k * stride ] = workRe[ k ] * scale;
+            im[ offset + k * stride ] = sign * workIm[ k ] * scale;
+        }
+    }
+
+    // Forward transform of the first n values of re/im (arrays of length size), result in the first n
+
+    private void bluestein( double[] re , double[] im ) {
+        for ( int k = 0; k < n; k++ ){
+            double r = re[ k ] * chirpRe[ k ] - im[ k ] * chirpIm[ k ];
+            double i = re[ k ] * chirpIm[ k ] + im[ k ] * chirpRe[ k ];
+            re[ k ] = r;
+            im[ k ] = i;
+        }
+        for ( int k = n; k < size; k++ ){
+            re[ k ] = 0;
+            im[ k ] = 0;
+        }
+
+        // Convolve with the filter: multiply the transforms, then transform back through the conjugate
+
+        radix2( re , im );
+        for ( int k = 0; k < size; k++ ){
+            double r = re[ k ] * filterRe[ k ] - im[ k ] * filterIm[ k ];
+            double i = re[ k ] * filterIm[ k ] + im[ k ] * filterRe[ k ];
+            re[ k ] = r;
+            im[ k ] = -i;
+        }
+        radix2( re , im );
+
+        for ( int k = 0; k < n; k++ ){
+            double r = re[ k ] / size;
+            double i = -im[ k ] / size;
+            re[ k ] = r * chirpRe[ k ] - i * chirpIm[ k ];
+            im[ k ] = r * chirpIm[ k ] + i * chirpRe[ k ];
+        }
+    }
+
+    // In place iterative radix-2 forward transform of the first size values
+
+    private void radix2( double[] re , double[] im ) {
+        int bits = Integer.numberOfTrailingZeros( size );
+        for ( int k = 1; k < size; k++ ){
+            int j = Integer.reverse( k ) >>> ( 32 - bits );
+            if ( j > k ) {
+                double t = re[ k ];
+                re[ k ] = re[ j ];
+                re[ j ] = t;
+                t = im[ k ];
+                im[ k ] = im[ j ];
+                im[ j ] = t;
+            }
+        }
+
+        for ( int half = 1; half < size; half <<= 1 ){
+            int step = size / ( 2 * half ); // Twiddle index stride for this level
+            for ( int start = 0; start < size; start += 2 * half ){
+                for ( int k = 0; k < half; k++ ){
+                    double wr = cos[ k * step ];
+                    double wi = -sin[ k * step ];
+                    int a = start + k;
+                    int b = a + half;
+                    double tr = re[ b ] * wr - im[ b ] * wi;
+                    double ti = re[ b ] * wi + im[ b ] * wr;
+                    re[ b ] = re[ a ] - tr;
+                    im[ b ] = im[ a ] - ti;
+                    re[ a ] += tr;
+                    im[ a ] += ti;
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package conwaygame;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 
 /**
@@ -11,9 +14,16 @@ import java.util.ArrayList;
  * Alive cells with >=4 neighbors die of overpopulation.
  * Alive cells with 2-3 neighbors survive.
  * Dead cells with exactly 3 neighbors become alive by reproduction.
+ *
+ * Those are the default rule, B3/S23. Any other Life-like rule can be set with setRule( Rule ).
+ *
+ * setParallelism( threads ) steps the SCALAR path in tiles on a ForkJoinPool of its own, weighing the tiles
+ * by how many alive cells are around them rather than by area. close() shuts that pool down again.
+ *
+ * The board wraps around like a torus by default, or can have dead cells past its edges (Boundary.DEAD).
  */
 
-public class GameOfLife {
+public class GameOfLife implements AutoCloseable {
 
     // Instance variables
     
@@ -21,8 +31,27 @@ public class GameOfLife {
     private static final boolean DEAD = false;
 
     private boolean[][] grid; // The board has the current generation of cells
+    private boolean[][] nextGrid; // Preallocated buffer the next generation is written into, then swapped with grid
     private int totalAliveCells; // Total number of alive cells in the grid (board)
 
+    private EngineMode mode = EngineMode.SCALAR; // Which engine nextGeneration() runs on
+    private Boundary boundary = Boundary.TORUS; // What lies past the edges of the board
+    private Rule rule = Rule.CONWAY; // Births and survivals, B3/S23 unless changed
+    private LifeEngine engine; // null while running on the SCALAR path
+    private boolean gridStale; // true when the engine is ahead of grid
+    private boolean[] deadRow; // Stands in for the rows past the top and bottom edges with Boundary.DEAD
+
+    private int parallelism = 1; // Threads the SCALAR path steps with
+    private ForkJoinPool pool; // null while parallelism is 1 and the calling thread does all the work
+
+    private static final int TILE_SIZE = 32; // Side of the square tiles the parallel path weighs and steals
+    private int[] tileAlive; // Alive cells in each tile of tiledGrid, tiles numbered row by row
+    private int[] nextTileAlive; // Same for tiledNext
+    private boolean[][] tiledGrid; // The board tileAlive counts, recounted whenever grid is some other array
+    private boolean[][] tiledNext; // The board nextTileAlive counts, null when unknown
+    private boolean[] tileActive; // Tiles that may have alive cells next generation, refilled every generation
+    private long[] tileWeights; // tileWeights[ t ] is the total weight of tiles 0..t - 1, refilled every generation
+
     /**
      * Default Constructor which creates a small 5x5 grid with five alive cells.
      * This variation does not exceed bounds and dies off after four iterations.
@@ -71,20 +100,162 @@ public class GameOfLife {
             totalAliveCells = count;
     }
 
+    /**
+     * Same as GameOfLife( file ) but runs the game on the given engine.
+     */
+
+    public GameOfLife( String file , EngineMode mode ) {
+        this( file );
+        setEngineMode( mode );
+    }
+
+    /**
+     * Same as GameOfLife( file ) but runs the game on the given engine with the given boundary.
+     */
+
+    public GameOfLife( String file , EngineMode mode , Boundary boundary ) {
+        this( file );
+        this.boundary = boundary;
+        setEngineMode( mode );
+    }
+
+    // Returns what lies past the edges of the board
+
+    public Boundary getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * Switches between a torus and a board with dead cells past its edges, keeping the current engine.
+     */
+
+    public void setBoundary( Boundary boundary ) {
+        syncGrid();
+        replaceEngine( mode.create( grid , boundary , rule ) );
+        this.boundary = boundary;
+    }
+
+    // Returns the rule the game runs on
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Switches to another Life-like rule, keeping the current engine and generation.
+     */
+
+    public void setRule( Rule rule ) {
+        syncGrid();
+        replaceEngine( mode.create( grid , boundary , rule ) );
+        this.rule = rule;
+    }
+
+    // Same as setRule( Rule.parse( notation ) ), for example setRule( "B36/S23" )
+
+    public void setRule( String notation ) {
+        setRule( Rule.parse( notation ) );
+    }
+
+    // Returns the engine nextGeneration() currently runs on
+
+    public EngineMode getEngineMode() {
+        return mode;
+    }
+
+    // Returns the engine behind the current mode (for its statistics), or null for SCALAR
+
+    public LifeEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Switches the engine used by nextGeneration(). The new engine starts from the current generation.
+     */
+
+    public void setEngineMode( EngineMode mode ) {
+        syncGrid();
+        replaceEngine( mode.create( grid , boundary , rule ) );
+        this.mode = mode;
+    }
+
+    // Closes the engine being switched away from so its threads and off-heap memory don't outlive it
+
+    private void replaceEngine( LifeEngine newEngine ) {
+        if ( engine != null ) {
+            totalAliveCells = engine.getTotalAliveCells(); // The count of grid, which syncGrid() just brought up to date
+            engine.close();
+        }
+        engine = newEngine;
+    }
+
+    // Returns the number of threads the SCALAR path steps with
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads computeNewGrid() and nextGeneration() use on the SCALAR path.
+     * With more than one the board is split into tiles stepped on a ForkJoinPool owned by this game,
+     * all writing into the same next grid. The result is exactly the same as with one thread.
+     */
+
+    public void setParallelism( int threads ) {
+        if ( threads < 1 ) {
+            throw new IllegalArgumentException( "Need at least one thread: " + threads );
+        }
+        if ( pool != null ) {
+            pool.shutdown();
+        }
+        pool = threads > 1 ? new ForkJoinPool( threads ) : null;
+        parallelism = threads;
+    }
+
+    /**
+     * Stops the threads this game started: the ForkJoinPool from setParallelism() and any the engine runs.
+     * Call it once the game is no longer needed.
+     */
+
+    public void close() {
+        if ( pool != null ) {
+            pool.shutdown();
+            pool = null;
+        }
+        parallelism = 1;
+        if ( engine != null ) {
+            engine.close();
+        }
+    }
+
+    // Copies the engine's current generation back into grid if it has moved on since the last copy
+
+    private void syncGrid() {
+        if ( gridStale ) {
+            grid = engine.toGrid();
+            gridStale = false;
+        }
+    }
+
     /**
      * Returns grid
      * 
-     * @return boolean[][] for current grid
+     * @return boolean[][] for current grid, edit a copy of it: with setParallelism() the parallel path
+     * keeps track of where the alive cells are and won't notice cells changed behind its back
      */
     
     public boolean[][] getGrid() {
+        syncGrid();
         return grid;
     }
 
-    // Returns totalAliveCells
+    // Returns totalAliveCells, or asks the engine when there is one (UNBOUNDED counts only the original window)
     
     
     public int getTotalAliveCells() {
+        if ( engine != null ) {
+            return engine.getTotalAliveCells();
+        }
         return totalAliveCells;
     }
 
@@ -92,23 +263,23 @@ public class GameOfLife {
     
     public boolean getCellState( int row , int col ) {
 
+        if ( engine != null ) {
+            return engine.getCell( row , col );
+        }
+
         boolean currentValue = grid[ row ][ col ];
 
         return currentValue; 
     }
 
-    // Returns true if there are any alive cells in the grid
+    // Returns true if there are any alive cells in the grid (anywhere on the plane for UNBOUNDED), without a scan
      
     public boolean isAlive() {
 
-        for ( int i = 0; i < grid.length; i++ ){
-            for ( int j = 0; j < grid[ 0 ].length; j++ ){
-                if ( grid[ i ][ j ] ){
-                   return true;
-                } 
-            }
+        if ( engine != null ) {
+            return engine.isAlive();
         }
-        return false; 
+        return totalAliveCells > 0;
     }
 
     /**
@@ -118,185 +289,401 @@ public class GameOfLife {
      */
     
     public int numOfAliveNeighbors( int row , int col ) {
-        int height = grid.length;
-        int width = grid[ 0 ].length;
-        int neighborRow;
-        int neighborColumn;
+        syncGrid();
+        prepareEdges();
+        boolean[] up = rowAbove( row );
+        boolean[] cells = grid[ row ];
+        boolean[] down = rowBelow( row );
+        return columnSum( up , cells , down , col - 1 ) + columnSum( up , cells , down , col )
+               + columnSum( up , cells , down , col + 1 ) - ( cells[ col ] ? 1 : 0 );
+    }
 
+    /**
+     * Writes cells from..to - 1 of row i of the next generation into next and returns how many of them are alive.
+     *
+     * The neighbors are counted from a running sum of the three cells in each column (the rows above, at and
+     * below row i), so each cell only adds up one new column. Both boundaries go through this same code and
+     * only differ past the edges: rowAbove(), rowBelow() and columnSum() wrap around on a torus and see dead
+     * cells otherwise.
+     */
+
+    private int stepRow( boolean[] next , int i , int from , int to ) {
+        boolean[] up = rowAbove( i );
+        boolean[] cells = grid[ i ];
+        boolean[] down = rowBelow( i );
+        byte[] nextState = rule.nextStateTable();
+        int last = cells.length - 1;
+        int left = columnSum( up , cells , down , from - 1 );
+        int middle = columnSum( up , cells , down , from );
         int count = 0;
-        
-        // northwest neighbor 
-        
-        neighborRow = row > 0 ? row - 1: height - 1;
-        neighborColumn = col > 0 ? col - 1: width - 1;
 
-        if ( grid[ neighborRow ][ neighborColumn ] ) {
-            count++; 
+        for ( int j = from; j < to; j++ ){
+            int right = j < last ? ( up[ j + 1 ] ? 1 : 0 ) + ( cells[ j + 1 ] ? 1 : 0 ) + ( down[ j + 1 ] ? 1 : 0 )
+                                 : columnSum( up , cells , down , j + 1 );
+            int self = cells[ j ] ? 1 : 0;
+            boolean isAlive = nextState[ ( self << 4 ) | ( left + middle + right - self ) ] != 0;
+            next[ j ] = isAlive;
+            if ( isAlive ){
+                count++;
+            }
+            left = middle;
+            middle = right;
         }
-        // north neighbor
-        
-        neighborRow = row > 0 ? row - 1: height - 1;
-        
-        if ( grid[ neighborRow ][ col ] ) {
-            count++; 
+        return count;
+    }
+
+    // Number of alive cells in column col of the three rows, col may be one past either edge of the board
+
+    private int columnSum( boolean[] up , boolean[] cells , boolean[] down , int col ) {
+        int width = cells.length;
+        if ( col < 0 || col >= width ) {
+            if ( boundary == Boundary.DEAD ) {
+                return 0;
+            }
+            col = ( col + width ) % width;
         }
-        // northeast neighbor
-        
-        neighborRow = row > 0 ? row - 1: height - 1;
-        neighborColumn = col < width - 1 ? col + 1: 0;
+        return ( up[ col ] ? 1 : 0 ) + ( cells[ col ] ? 1 : 0 ) + ( down[ col ] ? 1 : 0 );
+    }
+
+    // The row above row i: the last row on a torus if i is the first, or an all dead row with Boundary.DEAD
 
-        if ( grid[ neighborRow ][ neighborColumn ] ) {
-             count++; 
+    private boolean[] rowAbove( int i ) {
+        if ( i > 0 ) {
+            return grid[ i - 1 ];
         }
-        
-        // west neighbor
-        
-        neighborColumn = col > 0 ? col - 1: width - 1;
+        return boundary == Boundary.TORUS ? grid[ grid.length - 1 ] : deadRow;
+    }
+
+    // The row below row i, see rowAbove()
 
-        if ( grid[ row ][ neighborColumn ] ) {
-            count++; 
+    private boolean[] rowBelow( int i ) {
+        if ( i < grid.length - 1 ) {
+            return grid[ i + 1 ];
         }
+        return boundary == Boundary.TORUS ? grid[ 0 ] : deadRow;
+    }
 
-        // east neighbor
-        
-        neighborColumn = col < width - 1 ? col + 1: 0;
+    // Makes the all dead row past the top and bottom edges, before any tile reads it
 
-        if ( grid[ row ][ neighborColumn ] ) {
-            count++; 
+    private void prepareEdges() {
+        if ( deadRow == null || deadRow.length != grid[ 0 ].length ) {
+            deadRow = new boolean[ grid[ 0 ].length ];
         }
-        // southwest
-        
-        neighborRow = row < height - 1 ? row + 1: 0;
-        neighborColumn = col > 0 ? col - 1: width - 1;
+    }
 
-        if ( grid[ neighborRow ][ neighborColumn ] ) {
-            count++; 
+    /**
+     * Creates a new grid with the next generation of the current grid using the rule of the game (Conway's by default).
+     * @return boolean[][] of new grid (this is a new 2D array)
+     */
+    
+    public boolean[][] computeNewGrid() {
+
+        syncGrid();
+
+        boolean [][] newGrid = new boolean[ grid.length ][ grid[ 0 ].length ];
+        computeNewGrid( newGrid );
+        return newGrid;
+    }
+
+    /**
+     * Writes the next generation of the current grid into newGrid instead of allocating one.
+     * @return int number of alive cells in newGrid, counted in the same pass
+     */
+
+    private int computeNewGrid( boolean[][] newGrid ) {
+
+        prepareEdges();
+        if ( pool == null ) {
+            tiledNext = null;
+            return computeRows( newGrid , 0 , grid.length );
         }
-        // south
-        
-        neighborRow = row < height - 1 ? row + 1: 0;
+        return computeTiles( newGrid );
+    }
 
-        if ( grid[ neighborRow ][ col ] ) {
-            count++; 
+    /**
+     * Parallel version of computeNewGrid( newGrid ). The board is cut into TILE_SIZE tiles and each tile is
+     * weighed by the work it needs this generation: a tile with no alive cells in it or in the eight tiles
+     * around it stays dead (unless the rule has B0), so it is skipped, or just cleared if newGrid still holds
+     * alive cells there. The other tiles weigh their area plus their alive cells. The tiles are then split by
+     * weight instead of count, so a dense corner is spread over every thread and the empty rest of the board
+     * costs next to nothing. The weights come from the counts of the last generation, so the split follows a
+     * pattern as it moves.
+     */
+
+    private int computeTiles( boolean[][] newGrid ) {
+
+        int tileRows = ( grid.length + TILE_SIZE - 1 ) / TILE_SIZE;
+        int tileCols = ( grid[ 0 ].length + TILE_SIZE - 1 ) / TILE_SIZE;
+        int tiles = tileRows * tileCols;
+
+        if ( tileAlive == null || tileAlive.length != tiles ) {
+            tileAlive = new int[ tiles ];
+            nextTileAlive = new int[ tiles ];
+            tileActive = new boolean[ tiles ];
+            tileWeights = new long[ tiles + 1 ];
+            tiledGrid = null;
+            tiledNext = null;
         }
-        // southeast
-        
-        neighborRow = row < height - 1 ? row + 1: 0;
-        neighborColumn = col < width - 1 ? col + 1: 0;
+        if ( tiledGrid != grid ) {
+            countTiles( tileCols );
+            tiledGrid = grid;
+        }
+        boolean newGridKnown = tiledNext == newGrid; // Otherwise newGrid may hold alive cells anywhere
+
+        boolean[] active = tileActive;
+        long[] weights = tileWeights;
+        for ( int t = 0; t < tiles; t++ ){
+            int tileRow = t / tileCols;
+            int tileCol = t % tileCols;
+            int area = ( Math.min( TILE_SIZE , grid.length - tileRow * TILE_SIZE ) )
+                       * ( Math.min( TILE_SIZE , grid[ 0 ].length - tileCol * TILE_SIZE ) );
+            long weight = 0;
+            active[ t ] = rule.bornWithoutNeighbors() || aliveAroundTile( tileRow , tileCol , tileRows , tileCols );
+            if ( active[ t ] ) {
+                weight = area + tileAlive[ t ];
+            } else if ( !newGridKnown || nextTileAlive[ t ] != 0 ) {
+                weight = area / 16 + 1; // Only needs clearing
+            }
+            weights[ t + 1 ] = weights[ t ] + weight;
+        }
+
+        long grain = Math.max( 1 , weights[ tiles ] / ( 4 * parallelism ) );
+        int count = pool.invoke( new TileTask( newGrid , active , weights , grain , tileCols , 0 , tiles ) );
+        tiledNext = newGrid;
+        return count;
+    }
+
+    // Counts the alive cells of grid in every tile into tileAlive
 
-        if ( grid[ neighborRow ][ neighborColumn ] ) {
-            count++; 
+    private void countTiles( int tileCols ) {
+        Arrays.fill( tileAlive , 0 );
+        for ( int i = 0; i < grid.length; i++ ){
+            int tileRow = ( i / TILE_SIZE ) * tileCols;
+            for ( int j = 0; j < grid[ 0 ].length; j++ ){
+                if ( grid[ i ][ j ] ) {
+                    tileAlive[ tileRow + j / TILE_SIZE ]++;
+                }
+            }
+        }
+    }
+
+    // Returns true if the tile or any of the tiles around it (wrapping around on a torus) has an alive cell
+
+    private boolean aliveAroundTile( int tileRow , int tileCol , int tileRows , int tileCols ) {
+        boolean wraps = boundary == Boundary.TORUS;
+        for ( int dr = -1; dr <= 1; dr++ ){
+            int r = tileRow + dr;
+            if ( r < 0 || r >= tileRows ) {
+                if ( !wraps ) {
+                    continue;
+                }
+                r = ( r + tileRows ) % tileRows;
+            }
+            for ( int dc = -1; dc <= 1; dc++ ){
+                int c = tileCol + dc;
+                if ( c < 0 || c >= tileCols ) {
+                    if ( !wraps ) {
+                        continue;
+                    }
+                    c = ( c + tileCols ) % tileCols;
+                }
+                if ( tileAlive[ r * tileCols + c ] != 0 ) {
+                    return true;
+                }
+            }
         }
+        return false;
+    }
+
+    // Writes one tile of the next generation into newGrid, counts its alive cells into nextTileAlive and returns them
+
+    private int computeTile( boolean[][] newGrid , boolean active , int tile , int tileCols ) {
 
+        int rowStart = ( tile / tileCols ) * TILE_SIZE;
+        int colStart = ( tile % tileCols ) * TILE_SIZE;
+        int rowEnd = Math.min( rowStart + TILE_SIZE , grid.length );
+        int colEnd = Math.min( colStart + TILE_SIZE , grid[ 0 ].length );
+
+        if ( !active ) {
+            if ( tiledNext != newGrid || nextTileAlive[ tile ] != 0 ) {
+                for ( int i = rowStart; i < rowEnd; i++ ){
+                    Arrays.fill( newGrid[ i ] , colStart , colEnd , false );
+                }
+                nextTileAlive[ tile ] = 0;
+            }
+            return 0;
+        }
+
+        int count = 0;
+        for ( int i = rowStart; i < rowEnd; i++ ){
+            count += stepRow( newGrid[ i ] , i , colStart , colEnd );
+        }
+        nextTileAlive[ tile ] = count;
+        return count;
+    }
+
+    // Writes rows from..to - 1 of the next generation into newGrid and returns how many of their cells are alive
+
+    private int computeRows( boolean[][] newGrid , int from , int to ) {
+
+        int count = 0;
+        for ( int i = from; i < to; i++ ){
+            count += stepRow( newGrid[ i ] , i , 0 , grid[ i ].length );
+        }
         return count;
     }
 
     /**
-     * Creates a new grid with the next generation of the current grid using the rules for Conway's Game of Life.
-     * @return boolean[][] of new grid (this is a new 2D array)
+     * Steps tiles from..to - 1, splitting the range where it is half done by weight until a piece weighs
+     * at most grain. There are about four such pieces per thread so threads that finish early can steal the
+     * rest. Tiles only read grid and write their own cells of newGrid, so they never need to synchronize.
      */
-    
-    public boolean[][] computeNewGrid() {
 
-        int height = grid.length;
-        int width = grid[ 0 ].length;
+    private class TileTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean[][] newGrid;
+        private final boolean[] active;
+        private final long[] weights;
+        private final long grain;
+        private final int tileCols;
+        private final int from;
+        private final int to;
+
+        TileTask( boolean[][] newGrid , boolean[] active , long[] weights , long grain , int tileCols , int from , int to ) {
+            this.newGrid = newGrid;
+            this.active = active;
+            this.weights = weights;
+            this.grain = grain;
+            this.tileCols = tileCols;
+            this.from = from;
+            this.to = to;
+        }
 
-        boolean [][] newGrid = new boolean[ height ][ width ];
+        protected Integer compute() {
+            if ( to - from == 1 || weights[ to ] - weights[ from ] <= grain ) {
+                int count = 0;
+                for ( int t = from; t < to; t++ ){
+                    count += computeTile( newGrid , active[ t ] , t , tileCols );
+                }
+                return count;
+            }
 
-        for ( int i = 0; i < height; i++ ){
-            for ( int j = 0; j < width; j++ ){
-                int numberOfNeighbors = numOfAliveNeighbors( i , j );
-                boolean isAlive = (grid[ i ][ j ] && ( numberOfNeighbors == 2 || numberOfNeighbors == 3 ) ) || 
-                                    (!grid[ i ][ j ] && numberOfNeighbors == 3 );
-                newGrid[ i ][ j ] = isAlive;
+            // First tile past the halfway weight, kept inside the range so both halves get at least one tile
+
+            long half = ( weights[ from ] + weights[ to ] ) >>> 1;
+            int low = from + 1;
+            int high = to - 1;
+            while ( low < high ) {
+                int probe = ( low + high ) >>> 1;
+                if ( weights[ probe ] < half ) {
+                    low = probe + 1;
+                } else {
+                    high = probe;
+                }
             }
+            TileTask first = new TileTask( newGrid , active , weights , grain , tileCols , from , low );
+            first.fork();
+            int second = new TileTask( newGrid , active , weights , grain , tileCols , low , to ).compute();
+            return first.join() + second;
         }
-        return newGrid;
     }
 
     /**
      * Updates the current grid (the grid instance variable) with the grid denoting
      * the next generation of cells computed by computeNewGrid().
      * 
-     * Updates totalAliveCells instance variable
+     * grid and nextGrid are swapped instead of allocating a new grid every generation,
+     * so an array returned by getGrid() is reused two generations later.
+     * 
+     * Updates totalAliveCells instance variable (on an engine the engine keeps the count)
      */
     
     public void nextGeneration() {
 
-        grid = computeNewGrid();
-        int count = 0;
-        for ( int i = 0; i < grid.length; i++ ){
-            for ( int j = 0; j < grid[ 0 ].length; j++ ){
-               if ( grid[ i ][ j ] ){
-                count++;
-               } 
-            }
+        if ( engine != null ) {
+            engine.step();
+            gridStale = true;
+            return;
         }
-        totalAliveCells = count;
+
+        if ( nextGrid == null || nextGrid.length != grid.length || nextGrid[ 0 ].length != grid[ 0 ].length ) {
+            nextGrid = new boolean[ grid.length ][ grid[ 0 ].length ];
+        }
+
+        totalAliveCells = computeNewGrid( nextGrid );
+        boolean[][] temp = grid;
+        grid = nextGrid;
+        nextGrid = temp;
+
+        // The tile counts travel with their boards
+
+        int[] tempCounts = tileAlive;
+        tileAlive = nextTileAlive;
+        nextTileAlive = tempCounts;
+        temp = tiledGrid;
+        tiledGrid = tiledNext;
+        tiledNext = temp;
     }
 
     // Updates the current grid with the grid computed after multiple (n) generations.
      
     public void nextGeneration( int n ) {
 
+        if ( engine != null ) {
+            engine.step( n );
+            gridStale = true;
+            return;
+        }
+
         for ( int i = 0; i < n; i++ ){
             nextGeneration();
         }
     }
 
-    // Determines the number of separate cell communities in the grid
-  
-    public int numOfCommunities() {
-
-        int r = grid.length;
-        int c = grid[ 0 ].length;
-
-        WeightedQuickUnionUF uf = new WeightedQuickUnionUF( r , c );
-       
-        for ( int i1 = 0; i1 < r; i1++ ){
-            for ( int j1 = 0; j1 < c; j1++ ){
-                if ( !grid[ i1 ][ j1 ] ) {
-                    continue;
-                }
+    /**
+     * Starts nextGeneration( n ) on a background thread and returns right away, so a UI thread stays free to draw.
+     * Only EngineMode.PHASER_TILES can do this. Until the returned future is done only requestSnapshot()
+     * may be called, after that the game is n generations ahead as if nextGeneration( n ) had run.
+     */
 
-                for ( int i2 = 0; i2 < r; i2++ ){
-                    for ( int j2 = 0; j2 < c; j2++ ) {
-                        if (areNeighbors( i1 , j1 , i2 , j2 ) && grid[ i2 ][ j2 ])
-                        {
-                            uf.union( i1 , j1 , i2 , j2 );
-                        }
-                    }
-                }
-            }
+    public CompletableFuture<Void> nextGenerationAsync( int n ) {
+        if ( !( engine instanceof PhaserTileEngine ) ) {
+            throw new IllegalStateException( "Stepping in the background needs EngineMode.PHASER_TILES, not " + mode );
         }
+        gridStale = true;
+        return ( ( PhaserTileEngine ) engine ).stepAsync( n );
+    }
 
-        // Using a set to account for duplicates
-        
-        ArrayList<Integer> roots = new ArrayList<>();
+    /**
+     * Returns a copy of the board as of a whole generation. While nextGenerationAsync() runs it is filled in
+     * between two generations, otherwise it is ready right away.
+     */
 
-        for ( int i = 0; i < r; i++ ){
-            for ( int j = 0; j < c; j++ ){
-                int union = uf.find( i , j );
-                if( !roots.contains( union ) ) {
-                    roots.add( union );
-                }
-            }
+    public CompletableFuture<boolean[][]> requestSnapshot() {
+        if ( engine instanceof PhaserTileEngine ) {
+            return ( ( PhaserTileEngine ) engine ).requestSnapshot();
         }
-
-        int deadCells = (r * c) - totalAliveCells;
-
-        int numberOfCommunities = roots.size() - deadCells;
-        return numberOfCommunities;
+        syncGrid();
+        boolean[][] copy = new boolean[ grid.length ][];
+        for ( int i = 0; i < grid.length; i++ ){
+            copy[ i ] = grid[ i ].clone();
+        }
+        return CompletableFuture.completedFuture( copy );
     }
 
-    private boolean areNeighbors( int row1 , int col1 , int row2 , int col2 )
-    {
-        int height = grid.length;
-        int width = grid[ 0 ].length;
-
-        boolean rowsClose = Math.abs( row1 - row2 ) <= 1 || Math.abs( row1 - row2 ) == height - 1;
-        boolean colsClose = Math.abs( col1 - col2 ) <= 1 || Math.abs( col1 - col2 ) == width - 1;
+    /**
+     * Determines the number of separate cell communities in the grid: groups of alive cells that touch,
+     * diagonals included, wrapping around the edges on a torus.
+     *
+     * The board is labeled in one pass that keeps only two rows of labels, see CommunityCounter.
+     * With setParallelism() it is cut into bands that are labeled in parallel and then joined.
+     */
+  
+    public int numOfCommunities() {
 
-        return rowsClose && colsClose;
+        syncGrid();
+        return CommunityCounter.count( grid , boundary , pool , parallelism );
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,231 @@
+package conwaygame;
+
+import java.util.Arrays;
+
+/**
+ * Engine for multi-state Generations rules (see GenerationsRule), such as Brian's Brain.
+ *
+ * Every cell is a 4-bit state packed 16 to a long: cell (row,col) is nibble col % 16 of word
+ * row * words + col / 16. A generation is one pass down the board that updates the states in place.
+ * Only ALIVE cells count as neighbors, so for each row the ALIVE cells of the rows above, at and below it
+ * are pulled out into bit-packed rows and BitKernel works out which cells the Life-like part of the rule
+ * has ALIVE. All 16 nibbles of a word are then updated at once with SWAR masks (which nibbles are DEAD,
+ * ALIVE, dying, or in the last dying state) instead of one at a time. Three of those bit rows (plus
+ * a copy of row 0 for the torus) are all the extra memory used, so the board stays at 4 bits per cell.
+ *
+ * getCell/toGrid/getTotalAliveCells see ALIVE cells only, getState() has the full state.
+ */
+
+public class GenerationsEngine implements LifeEngine {
+
+    private static final long NIBBLE_ONES = 0x1111111111111111L;
+    private static final long NIBBLE_LOW = 0x7777777777777777L;
+    private static final long NIBBLE_HIGH = 0x8888888888888888L;
+
+    // SPREAD[ b ] has bit 4k set for every bit k set in the byte b, to turn 8 bits into 8 nibbles
+
+    private static final long[] SPREAD = new long[ 256 ];
+
+    static {
+        for ( int b = 0; b < 256; b++ ){
+            for ( int k = 0; k < 8; k++ ){
+                if ( ( ( b >>> k ) & 1 ) != 0 ) {
+                    SPREAD[ b ] |= 1L << ( 4 * k );
+                }
+            }
+        }
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int words; // longs per row, 16 cells each
+    private final long[] cells; // The current generation, updated in place
+    private final boolean torus;
+    private final GenerationsRule rule;
+    private int totalAliveCells;
+
+    // Bit-packed ALIVE cells of the rows around the one being stepped, reused every generation
+
+    private long[] up;
+    private long[] row;
+    private long[] down;
+    private long[] out;
+    private final long[] first; // ALIVE cells of row 0 before it was stepped, the row below the last on a torus
+    private final long[] deadRow; // Stands in for the rows past the top and bottom edges with Boundary.DEAD
+
+    /**
+     * Creates an all DEAD board of the given size.
+     */
+
+    public GenerationsEngine( int rows , int cols , Boundary boundary , GenerationsRule rule ) {
+        if ( rows < 1 || cols < 1 ) {
+            throw new IllegalArgumentException( "Board must be at least 1x1: " + rows + "x" + cols );
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.rule = rule;
+        torus = boundary == Boundary.TORUS;
+        words = ( cols + 15 ) >>> 4;
+        cells = new long[ rows * words ];
+
+        int bitWords = ( cols + 63 ) >>> 6;
+        up = new long[ bitWords ];
+        row = new long[ bitWords ];
+        down = new long[ bitWords ];
+        out = new long[ bitWords ];
+        first = new long[ bitWords ];
+        deadRow = new long[ bitWords ];
+    }
+
+    public GenerationsEngine( boolean[][] grid , GenerationsRule rule ) {
+        this( grid , Boundary.TORUS , rule );
+    }
+
+    // Starts from grid, true cells are ALIVE and the rest DEAD
+
+    public GenerationsEngine( boolean[][] grid , Boundary boundary , GenerationsRule rule ) {
+        this( grid.length , grid[ 0 ].length , boundary , rule );
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                if ( grid[ i ][ j ] ) {
+                    setState( i , j , 1 );
+                }
+            }
+        }
+    }
+
+    public void step() {
+        Rule lifeRule = rule.getRule();
+        long lastState = ( rule.getStates() - 1 ) * NIBBLE_ONES; // Dying cells in this state become DEAD
+        long decay = rule.getStates() > 2 ? 2 * NIBBLE_ONES : 0; // What ALIVE cells that don't survive become
+        int count = 0;
+
+        aliveRow( 0 , row );
+        if ( torus ) {
+            aliveRow( rows - 1 , up );
+            System.arraycopy( row , 0 , first , 0 , row.length );
+        } else {
+            System.arraycopy( deadRow , 0 , up , 0 , up.length );
+        }
+
+        for ( int i = 0; i < rows; i++ ){
+            if ( i < rows - 1 ) {
+                aliveRow( i + 1 , down );
+            } else {
+                System.arraycopy( torus ? first : deadRow , 0 , down , 0 , down.length );
+            }
+            BitKernel.stepRow( up , row , down , out , cols , torus , lifeRule );
+
+            // Update the 16 nibbles of each word of row i, skipping words that are all DEAD and stay that way
+
+            int base = i * words;
+            for ( int w = 0; w < words; w++ ){
+                long word = cells[ base + w ];
+                int bits = ( int ) ( out[ w >>> 2 ] >>> ( ( w & 3 ) << 4 ) ) & 0xFFFF;
+                if ( word == 0 && bits == 0 ) {
+                    continue;
+                }
+                long alive = SPREAD[ bits & 0xFF ] | ( SPREAD[ bits >>> 8 ] << 32 ); // 1 in the nibbles the Life-like rule has ALIVE
+                long dead = equalNibbles( word , 0 );
+                long current = equalNibbles( word , NIBBLE_ONES );
+                long dying = ~( dead | current );
+                long aging = dying & ~equalNibbles( word , lastState ); // Dying cells that move on to the next state
+
+                long nowAlive = ( dead | current ) & alive;
+                long decayed = current & ~( alive * 0xF ) & decay;
+                cells[ base + w ] = nowAlive | decayed | ( ( word & aging ) + ( NIBBLE_ONES & aging ) );
+                count += Long.bitCount( nowAlive );
+            }
+
+            // Slide the window down one row
+
+            long[] temp = up;
+            up = row;
+            row = down;
+            down = temp;
+        }
+
+        totalAliveCells = count;
+    }
+
+    public boolean getCell( int row , int col ) {
+        return getState( row , col ) == 1;
+    }
+
+    // Returns the state of the cell at (row,col), 0 for DEAD, 1 for ALIVE and higher for dying
+
+    public int getState( int row , int col ) {
+        return ( int ) ( cells[ row * words + ( col >>> 4 ) ] >>> ( ( col & 15 ) << 2 ) ) & 0xF;
+    }
+
+    /**
+     * Sets the cell at (row,col) to the given state, which must be below the rule's number of states.
+     */
+
+    public void setState( int row , int col , int state ) {
+        if ( state < 0 || state >= rule.getStates() ) {
+            throw new IllegalArgumentException( "State must be 0-" + ( rule.getStates() - 1 ) + ": " + state );
+        }
+        int before = getState( row , col );
+        int index = row * words + ( col >>> 4 );
+        int shift = ( col & 15 ) << 2;
+        cells[ index ] = ( cells[ index ] & ~( 0xFL << shift ) ) | ( ( long ) state << shift );
+        totalAliveCells += ( state == 1 ? 1 : 0 ) - ( before == 1 ? 1 : 0 );
+    }
+
+    public GenerationsRule getRule() {
+        return rule;
+    }
+
+    public int getTotalAliveCells() {
+        return totalAliveCells;
+    }
+
+    public boolean[][] toGrid() {
+        boolean[][] grid = new boolean[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                grid[ i ][ j ] = getState( i , j ) == 1;
+            }
+        }
+        return grid;
+    }
+
+    // Returns the state of every cell
+
+    public int[][] toStates() {
+        int[][] states = new int[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                states[ i ][ j ] = getState( i , j );
+            }
+        }
+        return states;
+    }
+
+    // Returns 0xF in every nibble of x equal to the same nibble of pattern, 0 elsewhere
+
+    private static long equalNibbles( long x , long pattern ) {
+        long t = x ^ pattern;
+        long zero = ~( ( ( t & NIBBLE_LOW ) + NIBBLE_LOW ) | t ) & NIBBLE_HIGH;
+        return ( zero >>> 3 ) * 0xF;
+    }
+
+    // Writes the ALIVE cells (nibbles equal to 1) of row i into target as one bit per cell
+
+    private void aliveRow( int i , long[] target ) {
+        int base = i * words;
+        Arrays.fill( target , 0L );
+        for ( int w = 0; w < words; w++ ){
+            long bits = equalNibbles( cells[ base + w ] , NIBBLE_ONES ) & NIBBLE_ONES;
+
+            // Squeeze the 16 bits, 4 apart, together by halving the gaps
+
+            bits = ( bits | ( bits >>> 3 ) ) & 0x0303030303030303L;
+            bits = ( bits | ( bits >>> 6 ) ) & 0x000F000F000F000FL;
+            bits = ( bits | ( bits >>> 12 ) ) & 0x000000FF000000FFL;
+            bits = ( bits | ( bits >>> 24 ) ) & 0xFFFFL;
+            target[ w >>> 2 ] |= bits << ( ( w & 3 ) << 4 );
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package conwaygame;
+
+/**
+ * A Generations rule such as B2/S/C3 (Brian's Brain) or B2/S345/C4 (Star Wars).
+ *
+ * Cells have states 0 (DEAD), 1 (ALIVE) and 2..states - 1 (dying). Only ALIVE cells count as
+ * neighbors. DEAD and ALIVE cells follow the Life-like birth/survival rule, an ALIVE cell that
+ * doesn't survive starts dying instead of dying at once, and a dying cell moves on one state
+ * every generation until it wraps back to DEAD. With 2 states this is just the Life-like rule.
+ *
+ * At most 16 states are allowed so a cell always fits in 4 bits.
+ */
+
+public final class GenerationsRule {
+
+    public static final int MAX_STATES = 16;
+
+    public static final GenerationsRule BRIANS_BRAIN = parse( "B2/S/C3" );
+    public static final GenerationsRule STAR_WARS = parse( "B2/S345/C4" );
+
+    private final Rule rule; // Births and survivals of DEAD and ALIVE cells
+    private final int states;
+    private final byte[] nextState; // nextState[ state * 2 + 1 if the Life-like rule has the cell ALIVE ]
+
+    private GenerationsRule( Rule rule , int states ) {
+        this.rule = rule;
+        this.states = states;
+        nextState = new byte[ 2 * MAX_STATES ];
+        nextState[ 1 ] = 1;
+        nextState[ 2 * 1 + 1 ] = 1;
+        nextState[ 2 * 1 ] = ( byte ) ( states > 2 ? 2 : 0 );
+        for ( int state = 2; state < states; state++ ){
+            byte after = ( byte ) ( state + 1 == states ? 0 : state + 1 );
+            nextState[ 2 * state ] = after;
+            nextState[ 2 * state + 1 ] = after;
+        }
+    }
+
+    /**
+     * Parses a rule such as "B2/S/C3", "b2/s345/c4", or the older survival/birth/states form "345/2/4".
+     */
+
+    public static GenerationsRule parse( String notation ) {
+        String text = notation.trim().toUpperCase();
+        int last = text.lastIndexOf( '/' );
+        if ( last < 0 ) {
+            throw new IllegalArgumentException( "Rule must look like B2/S/C3: " + notation );
+        }
+
+        String count = text.substring( last + 1 );
+        if ( count.startsWith( "C" ) || count.startsWith( "G" ) ) {
+            count = count.substring( 1 );
+        }
+        int states;
+        try {
+            states = Integer.parseInt( count );
+        } catch ( NumberFormatException e ) {
+            throw new IllegalArgumentException( "Rule must end with the number of states: " + notation );
+        }
+        if ( states < 2 || states > MAX_STATES ) {
+            throw new IllegalArgumentException( "Number of states must be 2-" + MAX_STATES + ": " + notation );
+        }
+        return new GenerationsRule( Rule.parse( text.substring( 0 , last ) ) , states );
+    }
+
+    // Returns the births and survivals of DEAD and ALIVE cells as a Life-like rule
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    // Returns the number of states, including DEAD and ALIVE
+
+    public int getStates() {
+        return states;
+    }
+
+    // Returns the state of a cell next generation, given whether the Life-like rule has it ALIVE
+
+    public int next( int state , boolean alive ) {
+        return nextState[ 2 * state + ( alive ? 1 : 0 ) ];
+    }
+
+    public String toString() {
+        return rule + "/C" + states;
+    }
+
+    public boolean equals( Object o ) {
+        if ( !( o instanceof GenerationsRule ) ) {
+            return false;
+        }
+        GenerationsRule other = ( GenerationsRule ) o;
+        return rule.equals( other.rule ) && states == other.states;
+    }
+
+    public int hashCode() {
+        return rule.hashCode() * 31 + states;
+    }
+}
@@ -0,0 +1,110 @@
+package conwaygame;
+
+/**
+ * Engine that stores the board in one flat byte[] padded with a one cell border (the halo).
+ *
+ * Before every generation the halo is filled in from the opposite edges of the board, so the
+ * cell west of column 0 really is column cols - 1, and so on. After that every cell's
+ * neighbors are at fixed offsets in the array and the inner loop is a plain 3x3 sum with no
+ * wraparound checks, which the JIT can unroll and vectorize. Results are the same as the
+ * torus in GameOfLife. With Boundary.DEAD the halo is simply never filled in and stays dead.
+ *
+ * The row loop itself is a HaloKernel, so the same layout can run on the Vector API kernel
+ * (EngineMode.VECTOR) when it is available.
+ */
+
+public class HaloEngine implements LifeEngine {
+
+    private final int rows;
+    private final int cols;
+    private final int stride; // Length of one padded row, cols + 2
+    private byte[] current; // The current generation, cell (row,col) is at (row + 1) * stride + col + 1
+    private byte[] next; // Scratch buffer the next generation is written into
+    private int totalAliveCells;
+    private final HaloKernel kernel;
+    private final boolean torus;
+    private final Rule rule;
+
+    public HaloEngine( boolean[][] grid ) {
+        this( grid , Boundary.TORUS , Rule.CONWAY );
+    }
+
+    public HaloEngine( boolean[][] grid , Boundary boundary , Rule rule ) {
+        this( grid , boundary , rule , HaloEngine::stepRow );
+    }
+
+    HaloEngine( boolean[][] grid , Boundary boundary , Rule rule , HaloKernel kernel ) {
+        this.kernel = kernel;
+        this.rule = rule;
+        torus = boundary == Boundary.TORUS;
+        rows = grid.length;
+        cols = grid[ 0 ].length;
+        stride = cols + 2;
+        current = new byte[ ( rows + 2 ) * stride ];
+        next = new byte[ ( rows + 2 ) * stride ];
+
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                if ( grid[ i ][ j ] ) {
+                    current[ index( i , j ) ] = 1;
+                    totalAliveCells++;
+                }
+            }
+        }
+    }
+
+    public void step() {
+        if ( torus ) {
+            HaloKernel.refreshHalo( current , rows , cols );
+        }
+
+        int count = 0;
+        for ( int i = 1; i <= rows; i++ ){
+            int start = i * stride + 1;
+            count += kernel.stepRow( current , next , start , start + cols , stride , rule );
+        }
+
+        byte[] temp = current;
+        current = next;
+        next = temp;
+        totalAliveCells = count;
+    }
+
+    // The plain Java kernel, writes cells start..end - 1 of the next generation into out and returns how many are alive
+
+    static int stepRow( byte[] cells , byte[] out , int start , int end , int stride , Rule rule ) {
+        byte[] nextState = rule.nextStateTable();
+        int count = 0;
+        for ( int k = start; k < end; k++ ){
+            int numberOfNeighbors = cells[ k - stride - 1 ] + cells[ k - stride ] + cells[ k - stride + 1 ]
+                                  + cells[ k - 1 ] + cells[ k + 1 ]
+                                  + cells[ k + stride - 1 ] + cells[ k + stride ] + cells[ k + stride + 1 ];
+            byte state = nextState[ ( cells[ k ] << 4 ) | numberOfNeighbors ];
+            out[ k ] = state;
+            count += state;
+        }
+        return count;
+    }
+
+    public boolean getCell( int row , int col ) {
+        return current[ index( row , col ) ] != 0;
+    }
+
+    public int getTotalAliveCells() {
+        return totalAliveCells;
+    }
+
+    public boolean[][] toGrid() {
+        boolean[][] grid = new boolean[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                grid[ i ][ j ] = current[ index( i , j ) ] != 0;
+            }
+        }
+        return grid;
+    }
+
+    private int index( int row , int col ) {
+        return ( row + 1 ) * stride + col + 1;
+    }
+}
@@ -0,0 +1,46 @@
+package conwaygame;
+/*
+ * Inner loop of HaloEngine: computes one padded row of the next generation.
+ *
+ * The Vector API version lives in src-vector because jdk.incubator.vector has to be added
+ * with --add-modules at compile and run time. vectorOrScalar() loads it when both the module
+ * and the class are there, and otherwise falls back to the plain Java loop in HaloEngine.
+ * refreshHalo() fills in the halo of that layout for every engine that uses it.
+ */
+interface HaloKernel {
+
+    /**
+     * Writes cells start..end - 1 of the next generation under rule into out. cells has a refreshed
+     * halo and stride is the length of one padded row.
+     * @return int number of alive cells written
+     */
+
+    int stepRow( byte[] cells , byte[] out , int start , int end , int stride , Rule rule );
+
+    // Returns the Vector API kernel if it can be loaded, otherwise the scalar one
+
+    static HaloKernel vectorOrScalar() {
+        if ( ModuleLayer.boot().findModule( "jdk.incubator.vector" ).isPresent() ) {
+            try {
+                return ( HaloKernel ) Class.forName( "conwaygame.VectorHaloKernel" ).getDeclaredConstructor().newInstance();
+            } catch ( ReflectiveOperationException | LinkageError e ) {
+                // Not compiled in, or compiled against a different Vector API, use the scalar loop
+            }
+        }
+        return HaloEngine::stepRow;
+    }
+
+    // Copies the opposite edges of a rows x cols board padded with a one cell halo into the halo,
+    // the corners come along with the top and bottom rows
+
+    static void refreshHalo( byte[] cells , int rows , int cols ) {
+        int stride = cols + 2;
+        for ( int i = 1; i <= rows; i++ ){
+            int start = i * stride;
+            cells[ start ] = cells[ start + cols ];
+            cells[ start + cols + 1 ] = cells[ start + 1 ];
+        }
+        System.arraycopy( cells , rows * stride , cells , 0 , stride );
+        System.arraycopy( cells , stride , cells , ( rows + 1 ) * stride , stride );
+    }
+}
@@ -0,0 +1,522 @@
+package conwaygame;
+
+import java.util.HashMap;
+
+/**
+ * HashLife engine: the board is stored as a hash-consed quadtree, so identical regions are
+ * the same Node object, and every Node remembers what its center looks like 2^j generations later.
+ * Periodic and sparse patterns keep hitting those memoized results, which lets
+ * nextGeneration( n ) skip ahead by powers of two instead of looping n times.
+ *
+ * The torus is handled by treating the board as one tile of an infinite periodic tiling:
+ * - rows and columns both powers of two: the tiling itself is a quadtree (a node made of four
+ *   copies of the tile), so any number of generations costs O(log n) memoized lookups.
+ * - any other size: the tiling is rebuilt around the board once per chunk of generations,
+ *   and since a torus only has finitely many states, a repeated board lets us skip every
+ *   remaining full period at once.
+ *
+ * That second case is much slower. A chunk is only 2^(chunkLevel - 2) generations, about half
+ * the board's longer side, and each one rebuilds a 2^chunkLevel square from the board (dead blocks
+ * are skipped, but every alive cell is visited about 4 times per level) and copies the result back.
+ * A repeat is only noticed at chunk boundaries, so skipping ahead waits for a multiple of the chunk
+ * that is also a multiple of the period: 10^9 generations of a glider take 63 chunks on a 1000 x 1000
+ * board and about 2000 on a 37 x 53 one, most of a second either way, where a 1024 x 1024 board
+ * takes milliseconds. Pad the board to powers of two when that matters.
+ *
+ * Any Rule can be run except B0 ones, since an all dead node is assumed to stay dead.
+ */
+
+public class HashLife implements LifeEngine {
+
+    // Once the node table grows past this many nodes it is thrown away and rebuilt from the board
+
+    private static final int MAX_NODES = 1 << 22;
+
+    private final int rows;
+    private final int cols;
+
+    private HashMap<Node, Node> nodes = new HashMap<>(); // Canonical copy of every node
+    private Node[] empties = new Node[ 64 ]; // All-dead node for each level
+    private final Node on = new Node( true );
+    private final Node off = new Node( false );
+
+    // Power of two boards: the board tiled out to a square of side 2^tileLevel
+
+    private final boolean periodic;
+    private final int tileLevel;
+    private Node tile;
+
+    // Any other size: the board itself, plus every board seen so far and the generation it was seen at
+
+    private final int chunkLevel;
+    private boolean[][] grid;
+    private int totalAliveCells;
+    private HashMap<Node, Long> seen = new HashMap<>();
+    private int[][] sums; // sums[ i ][ j ] is the number of alive cells above and left of (i,j), for build()
+
+    private long generation;
+    private final Rule rule;
+
+    // Quadtree node, level 0 is a single cell and a level k node is 2^k x 2^k cells
+
+    private static final class Node {
+        final int level;
+        final Node nw, ne, sw, se;
+        final long population;
+        final int hash;
+        Node[] results; // results[ j ] is the center of this node 2^j generations later
+
+        Node( boolean alive ) {
+            level = 0;
+            nw = ne = sw = se = null;
+            population = alive ? 1 : 0;
+            hash = alive ? 1 : 0;
+        }
+
+        Node( Node nw , Node ne , Node sw , Node se ) {
+            level = nw.level + 1;
+            this.nw = nw;
+            this.ne = ne;
+            this.sw = sw;
+            this.se = se;
+            population = add( add( nw.population , ne.population ) , add( sw.population , se.population ) );
+            int h = System.identityHashCode( nw );
+            h = h * 31 + System.identityHashCode( ne );
+            h = h * 31 + System.identityHashCode( sw );
+            hash = h * 31 + System.identityHashCode( se );
+        }
+
+        // Children are canonical already, so two nodes are the same if their children are the same objects
+
+        public boolean equals( Object o ) {
+            if ( !( o instanceof Node ) ) {
+                return false;
+            }
+            Node other = ( Node ) o;
+            return level == other.level && nw == other.nw && ne == other.ne && sw == other.sw && se == other.se;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        // Tilings far out can hold more than Long.MAX_VALUE cells, so the count stops there instead of wrapping
+
+        private static long add( long a , long b ) {
+            long sum = a + b;
+            return sum < 0 ? Long.MAX_VALUE : sum;
+        }
+    }
+
+    /**
+     * Loads the board from a text file in the same format GameOfLife( file ) reads.
+     */
+
+    public HashLife( String file ) {
+        this( new GameOfLife( file ).getGrid() , Rule.CONWAY );
+    }
+
+    public HashLife( boolean[][] grid ) {
+        this( grid , Rule.CONWAY );
+    }
+
+    public HashLife( boolean[][] grid , Rule rule ) {
+        if ( rule.bornWithoutNeighbors() ) {
+            throw new IllegalArgumentException( "HashLife can't run a B0 rule: " + rule );
+        }
+        this.rule = rule;
+        rows = grid.length;
+        cols = grid[ 0 ].length;
+        periodic = Integer.bitCount( rows ) == 1 && Integer.bitCount( cols ) == 1;
+
+        if ( periodic ) {
+            tileLevel = levelFor( Math.max( rows , cols ) );
+            chunkLevel = 0;
+            tile = buildTile( grid );
+        } else {
+            tileLevel = 0;
+            chunkLevel = levelFor( Math.max( rows , cols ) ) + 1;
+            this.grid = new boolean[ rows ][];
+            for ( int i = 0; i < rows; i++ ){
+                this.grid[ i ] = grid[ i ].clone();
+                for ( int j = 0; j < cols; j++ ){
+                    if ( grid[ i ][ j ] ) {
+                        totalAliveCells++;
+                    }
+                }
+            }
+        }
+    }
+
+    // Returns the number of generations this board has been advanced
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public void step() {
+        step( 1L );
+    }
+
+    public void step( int n ) {
+        step( ( long ) n );
+    }
+
+    /**
+     * Advances the board by n generations, n may be far larger than an int.
+     */
+
+    public void step( long n ) {
+        if ( n <= 0 ) {
+            return;
+        }
+        if ( periodic ) {
+            for ( int j = 0; j < 63; j++ ){
+                if ( ( ( n >>> j ) & 1L ) != 0 ) {
+                    tile = advanceTile( j );
+                    trimNodes();
+                }
+            }
+        } else {
+            advanceChunks( n );
+        }
+        generation += n;
+    }
+
+    public boolean getCell( int row , int col ) {
+        if ( !periodic ) {
+            return grid[ row ][ col ];
+        }
+        return cellOf( tile , row , col );
+    }
+
+    public int getTotalAliveCells() {
+        if ( !periodic ) {
+            return totalAliveCells;
+        }
+        int side = 1 << tileLevel;
+        return ( int ) ( tile.population / ( ( long ) ( side / rows ) * ( side / cols ) ) );
+    }
+
+    public boolean[][] toGrid() {
+        boolean[][] result = new boolean[ rows ][ cols ];
+        if ( periodic ) {
+            fill( tile , 0 , 0 , result );
+        } else {
+            for ( int i = 0; i < rows; i++ ){
+                result[ i ] = grid[ i ].clone();
+            }
+        }
+        return result;
+    }
+
+    // Power of two boards: advances the tile by 2^j generations
+
+    private Node advanceTile( int j ) {
+        int level = Math.max( j + 2 , tileLevel + 1 );
+        Node tiling = tile;
+        for ( int k = tileLevel; k < level; k++ ){
+            tiling = join( tiling , tiling , tiling , tiling );
+        }
+        Node result = successor( tiling , j );
+
+        // The result starts 2^(level - 2) cells into the tiling. If that is a whole number of tiles
+        // the tile is in the top left corner, otherwise it is off by half a tile in both directions.
+
+        if ( level - 2 >= tileLevel ) {
+            while ( result.level > tileLevel ) {
+                result = result.nw;
+            }
+            return result;
+        }
+        return join( result.se , result.sw , result.ne , result.nw );
+    }
+
+    // Any other size: advances the board n generations, one chunk of 2^(chunkLevel - 2) at a time
+
+    private void advanceChunks( long n ) {
+        int fullStep = chunkLevel - 2;
+        long chunk = 1L << fullStep;
+        long current = generation;
+
+        while ( n > 0 ) {
+            Node region = buildRegion();
+
+            Long previous = seen.get( region );
+            if ( previous != null ) {
+                n %= current - previous;
+                seen.clear();
+                if ( n == 0 ) {
+                    break;
+                }
+            }
+            seen.put( region , current );
+
+            // Take the biggest power of two step that still fits
+
+            int j = n >= chunk ? fullStep : 63 - Long.numberOfLeadingZeros( n );
+            readRegion( successor( region , j ) );
+            n -= 1L << j;
+            current += 1L << j;
+            trimNodes(); // Also forgets the boards seen so far, so a cycle takes longer to notice after this
+        }
+    }
+
+    // Builds the 2^chunkLevel square of the tiling centered so that its result lands on the board
+
+    private Node buildRegion() {
+        if ( sums == null ) {
+            sums = new int[ rows + 1 ][ cols + 1 ];
+        }
+        for ( int i = 0; i < rows; i++ ){
+            int rowSum = 0;
+            for ( int j = 0; j < cols; j++ ){
+                rowSum += grid[ i ][ j ] ? 1 : 0;
+                sums[ i + 1 ][ j + 1 ] = sums[ i ][ j + 1 ] + rowSum;
+            }
+        }
+        int offset = -( 1 << ( chunkLevel - 2 ) );
+        return build( chunkLevel , offset , offset );
+    }
+
+    private Node build( int level , int row , int col ) {
+        if ( level == 0 ) {
+            return grid[ Math.floorMod( row , rows ) ][ Math.floorMod( col , cols ) ] ? on : off;
+        }
+        if ( sums != null && isDead( row , col , 1 << level ) ) {
+            return empty( level );
+        }
+        int half = 1 << ( level - 1 );
+        return join( build( level - 1 , row , col ) , build( level - 1 , row , col + half ) ,
+                     build( level - 1 , row + half , col ) , build( level - 1 , row + half , col + half ) );
+    }
+
+    // Returns true if the side x side square of the tiling at (row,col) has no alive cells.
+    // Squares that don't fit inside the board (only the top few levels) are taken as alive.
+
+    private boolean isDead( int row , int col , int side ) {
+        if ( side > rows || side > cols ) {
+            return false;
+        }
+        int top = Math.floorMod( row , rows );
+        int left = Math.floorMod( col , cols );
+        int bottom = Math.min( top + side , rows );
+        int right = Math.min( left + side , cols );
+        int wrapRows = top + side - bottom; // Rows that wrap around to the top of the board
+        int wrapCols = left + side - right;
+        return alive( top , left , bottom , right ) == 0 && alive( 0 , left , wrapRows , right ) == 0
+               && alive( top , 0 , bottom , wrapCols ) == 0 && alive( 0 , 0 , wrapRows , wrapCols ) == 0;
+    }
+
+    // Number of alive cells in rows top..bottom - 1 and columns left..right - 1 of the board
+
+    private int alive( int top , int left , int bottom , int right ) {
+        return sums[ bottom ][ right ] - sums[ top ][ right ] - sums[ bottom ][ left ] + sums[ top ][ left ];
+    }
+
+    // Copies the top left rows x cols corner of node back into grid
+
+    private void readRegion( Node node ) {
+        boolean[][] next = new boolean[ rows ][ cols ];
+        fill( node , 0 , 0 , next );
+        grid = next;
+        totalAliveCells = countAlive( next );
+    }
+
+    private Node buildTile( boolean[][] source ) {
+        grid = source;
+        Node result = build( tileLevel , 0 , 0 );
+        grid = null;
+        return result;
+    }
+
+    // Checked after every chunk or power of two step, so one huge step( n ) can't grow the table without limit
+
+    private void trimNodes() {
+        if ( nodes.size() > MAX_NODES ) {
+            rebuild();
+        }
+    }
+
+    // Drops every node and memoized result, then reloads the current board into a fresh table
+
+    private void rebuild() {
+        boolean[][] current = toGrid();
+        nodes = new HashMap<>();
+        empties = new Node[ 64 ];
+        seen = new HashMap<>();
+        if ( periodic ) {
+            tile = buildTile( current );
+        }
+    }
+
+    /**
+     * Returns the center of node (one level down) advanced by 2^j generations, j is at most level - 2.
+     */
+
+    private Node successor( Node node , int j ) {
+        if ( node.population == 0 ) {
+            return empty( node.level - 1 );
+        }
+        if ( node.results == null ) {
+            node.results = new Node[ node.level - 1 ];
+        }
+        Node result = node.results[ j ];
+        if ( result != null ) {
+            return result;
+        }
+
+        if ( node.level == 2 ) {
+            result = fourByFour( node );
+        } else {
+
+            // Nine overlapping squares one level down, each centered on a different part of node
+
+            Node n00 = node.nw;
+            Node n01 = join( node.nw.ne , node.ne.nw , node.nw.se , node.ne.sw );
+            Node n02 = node.ne;
+            Node n10 = join( node.nw.sw , node.nw.se , node.sw.nw , node.sw.ne );
+            Node n11 = join( node.nw.se , node.ne.sw , node.sw.ne , node.se.nw );
+            Node n12 = join( node.ne.sw , node.ne.se , node.se.nw , node.se.ne );
+            Node n20 = node.sw;
+            Node n21 = join( node.sw.ne , node.se.nw , node.sw.se , node.se.sw );
+            Node n22 = node.se;
+
+            int fullStep = node.level - 2;
+            int inner = j == fullStep ? j - 1 : j;
+
+            Node r00 = successor( n00 , inner );
+            Node r01 = successor( n01 , inner );
+            Node r02 = successor( n02 , inner );
+            Node r10 = successor( n10 , inner );
+            Node r11 = successor( n11 , inner );
+            Node r12 = successor( n12 , inner );
+            Node r20 = successor( n20 , inner );
+            Node r21 = successor( n21 , inner );
+            Node r22 = successor( n22 , inner );
+
+            if ( j == fullStep ) {
+
+                // Each half of the time is spent in one round, so step the four corners again
+
+                result = join( successor( join( r00 , r01 , r10 , r11 ) , inner ) ,
+                               successor( join( r01 , r02 , r11 , r12 ) , inner ) ,
+                               successor( join( r10 , r11 , r20 , r21 ) , inner ) ,
+                               successor( join( r11 , r12 , r21 , r22 ) , inner ) );
+            } else {
+
+                // All the time was spent in the first round, so just take the centers
+
+                result = join( center( r00 , r01 , r10 , r11 ) , center( r01 , r02 , r11 , r12 ) ,
+                               center( r10 , r11 , r20 , r21 ) , center( r11 , r12 , r21 , r22 ) );
+            }
+        }
+
+        node.results[ j ] = result;
+        return result;
+    }
+
+    // Center of the square made of the four given nodes
+
+    private Node center( Node nw , Node ne , Node sw , Node se ) {
+        return join( nw.se , ne.sw , sw.ne , se.nw );
+    }
+
+    // Base case: the center 2x2 of a 4x4 node after one generation
+
+    private Node fourByFour( Node node ) {
+        boolean[][] cells = new boolean[ 4 ][ 4 ];
+        fill( node , 0 , 0 , cells );
+
+        Node[] center = new Node[ 4 ];
+        for ( int i = 1; i <= 2; i++ ){
+            for ( int j = 1; j <= 2; j++ ){
+                int count = 0;
+                for ( int di = -1; di <= 1; di++ ){
+                    for ( int dj = -1; dj <= 1; dj++ ){
+                        if ( ( di != 0 || dj != 0 ) && cells[ i + di ][ j + dj ] ) {
+                            count++;
+                        }
+                    }
+                }
+                boolean alive = rule.next( cells[ i ][ j ] , count );
+                center[ ( i - 1 ) * 2 + ( j - 1 ) ] = alive ? on : off;
+            }
+        }
+        return join( center[ 0 ] , center[ 1 ] , center[ 2 ] , center[ 3 ] );
+    }
+
+    // Returns the canonical node with the given children
+
+    private Node join( Node nw , Node ne , Node sw , Node se ) {
+        Node node = new Node( nw , ne , sw , se );
+        Node canonical = nodes.putIfAbsent( node , node );
+        return canonical == null ? node : canonical;
+    }
+
+    private Node empty( int level ) {
+        if ( level == 0 ) {
+            return off;
+        }
+        if ( empties[ level ] == null ) {
+            Node child = empty( level - 1 );
+            empties[ level ] = join( child , child , child , child );
+        }
+        return empties[ level ];
+    }
+
+    private boolean cellOf( Node node , int row , int col ) {
+        while ( node.level > 0 ) {
+            int half = 1 << ( node.level - 1 );
+            if ( row < half ) {
+                node = col < half ? node.nw : node.ne;
+            } else {
+                node = col < half ? node.sw : node.se;
+                row -= half;
+            }
+            if ( col >= half ) {
+                col -= half;
+            }
+        }
+        return node.population != 0;
+    }
+
+    // Writes the cells of node whose top left corner is at (row,col) into target, clipped to its size
+
+    private void fill( Node node , int row , int col , boolean[][] target ) {
+        if ( node.population == 0 || row >= target.length || col >= target[ 0 ].length ) {
+            return;
+        }
+        if ( node.level == 0 ) {
+            target[ row ][ col ] = true;
+            return;
+        }
+        int half = 1 << ( node.level - 1 );
+        fill( node.nw , row , col , target );
+        fill( node.ne , row , col + half , target );
+        fill( node.sw , row + half , col , target );
+        fill( node.se , row + half , col + half , target );
+    }
+
+    private static int countAlive( boolean[][] cells ) {
+        int count = 0;
+        for ( int i = 0; i < cells.length; i++ ){
+            for ( int j = 0; j < cells[ 0 ].length; j++ ){
+                if ( cells[ i ][ j ] ) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Smallest k with 2^k >= size
+
+    private static int levelFor( int size ) {
+        int level = 0;
+        while ( ( 1 << level ) < size ) {
+            level++;
+        }
+        return level;
+    }
+}
@@ -0,0 +1,136 @@
+package conwaygame;
+
+/**
+ * Engine for Larger than Life rules (see LargerThanLifeRule), where every cell looks at the
+ * ( 2R + 1 ) x ( 2R + 1 ) square around it instead of its 8 neighbors.
+ *
+ * Counting that square cell by cell would cost O(R^2) per cell. Instead each generation builds a
+ * summed-area table: sums[ r ][ c ] is the number of alive cells above and to the left of (r,c) on
+ * the board padded by R cells on every side, the padding filled from the opposite edges on a torus
+ * (or left dead with Boundary.DEAD). Any square sum is then four lookups, so a generation is O(rows * cols)
+ * whatever the radius. If the square is larger than the board it wraps around and cells are counted
+ * once for every time they appear in it.
+ */
+
+public class LargerThanLifeEngine implements LifeEngine {
+
+    private final int rows;
+    private final int cols;
+    private final int radius;
+    private final LargerThanLifeRule rule;
+    private final int[] rowOf; // Board row of each padded row, -1 past the edges with Boundary.DEAD
+    private final int[] colOf;
+    private final int width; // Length of one row of sums, cols + 2 * radius + 1
+    private final int[] sums; // Summed-area table of the padded board, reused every generation
+    private boolean[][] current;
+    private boolean[][] next;
+    private int totalAliveCells;
+
+    public LargerThanLifeEngine( boolean[][] grid , LargerThanLifeRule rule ) {
+        this( grid , Boundary.TORUS , rule );
+    }
+
+    public LargerThanLifeEngine( boolean[][] grid , Boundary boundary , LargerThanLifeRule rule ) {
+        this.rule = rule;
+        rows = grid.length;
+        cols = grid[ 0 ].length;
+        radius = rule.getRadius();
+        rowOf = paddedIndex( rows , radius , boundary );
+        colOf = paddedIndex( cols , radius , boundary );
+        width = cols + 2 * radius + 1;
+        sums = new int[ ( rows + 2 * radius + 1 ) * width ];
+
+        current = new boolean[ rows ][ cols ];
+        next = new boolean[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                current[ i ][ j ] = grid[ i ][ j ];
+                if ( grid[ i ][ j ] ) {
+                    totalAliveCells++;
+                }
+            }
+        }
+    }
+
+    public void step() {
+        buildSums();
+
+        int side = 2 * radius + 1;
+        int count = 0;
+        for ( int i = 0; i < rows; i++ ){
+            int top = i * width; // sums row of padded row i, the top of cell i's square
+            int bottom = ( i + side ) * width;
+            boolean[] row = current[ i ];
+            boolean[] out = next[ i ];
+            for ( int j = 0; j < cols; j++ ){
+                int numberOfNeighbors = sums[ bottom + j + side ] - sums[ top + j + side ] - sums[ bottom + j ] + sums[ top + j ];
+                if ( row[ j ] && !rule.includesCenter() ) {
+                    numberOfNeighbors--;
+                }
+                boolean isAlive = rule.next( row[ j ] , numberOfNeighbors );
+                out[ j ] = isAlive;
+                if ( isAlive ) {
+                    count++;
+                }
+            }
+        }
+
+        boolean[][] temp = current;
+        current = next;
+        next = temp;
+        totalAliveCells = count;
+    }
+
+    public boolean getCell( int row , int col ) {
+        return current[ row ][ col ];
+    }
+
+    public int getTotalAliveCells() {
+        return totalAliveCells;
+    }
+
+    public LargerThanLifeRule getRule() {
+        return rule;
+    }
+
+    public boolean[][] toGrid() {
+        boolean[][] grid = new boolean[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            System.arraycopy( current[ i ] , 0 , grid[ i ] , 0 , cols );
+        }
+        return grid;
+    }
+
+    // Fills sums from the current generation, row 0 and column 0 of sums stay 0
+
+    private void buildSums() {
+        for ( int p = 0; p < rowOf.length; p++ ){
+            int above = p * width;
+            int here = above + width;
+            int boardRow = rowOf[ p ];
+            boolean[] row = boardRow < 0 ? null : current[ boardRow ];
+            int rowSum = 0;
+            for ( int q = 0; q < colOf.length; q++ ){
+                if ( row != null && colOf[ q ] >= 0 && row[ colOf[ q ] ] ) {
+                    rowSum++;
+                }
+                sums[ here + q + 1 ] = sums[ above + q + 1 ] + rowSum;
+            }
+        }
+    }
+
+    // Maps each of the size + 2 * radius padded positions to the board position it shows
+
+    private static int[] paddedIndex( int size , int radius , Boundary boundary ) {
+        int[] index = new int[ size + 2 * radius ];
+        for ( int p = 0; p < index.length; p++ ){
+            int position = p - radius;
+            if ( boundary == Boundary.TORUS ) {
+                index[ p ] = Math.floorMod( position , size );
+            } else {
+                index[ p ] = position >= 0 && position < size ? position : -1;
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,147 @@
+package conwaygame;
+
+/**
+ * A Larger than Life rule: a square (Moore) neighborhood of radius R, with survival and birth
+ * given as ranges of neighbor counts, for example Bosco's Rule R5,C0,M1,S34..58,B34..45,NM.
+ *
+ * R is the radius (the neighborhood is ( 2R + 1 ) x ( 2R + 1 )), M1 counts the cell itself as one of
+ * its neighbors and M0 doesn't, S and B are the inclusive ranges. Only two states (C0 or C2) and the
+ * Moore neighborhood (NM) are supported, since LargerThanLifeEngine sums squares.
+ */
+
+public final class LargerThanLifeRule {
+
+    public static final LargerThanLifeRule BOSCO = parse( "R5,C0,M1,S34..58,B34..45,NM" );
+
+    private final int radius;
+    private final boolean includeCenter;
+    private final int survivalMin, survivalMax;
+    private final int birthMin, birthMax;
+
+    public LargerThanLifeRule( int radius , boolean includeCenter , int survivalMin , int survivalMax , int birthMin , int birthMax ) {
+        if ( radius < 1 ) {
+            throw new IllegalArgumentException( "Radius must be at least 1: " + radius );
+        }
+        this.radius = radius;
+        this.includeCenter = includeCenter;
+        this.survivalMin = survivalMin;
+        this.survivalMax = survivalMax;
+        this.birthMin = birthMin;
+        this.birthMax = birthMax;
+    }
+
+    /**
+     * Parses a rule such as "R5,C0,M1,S34..58,B34..45,NM". C and N may be left out, and
+     * ranges may be written with a dash ("S34-58") or as a single count ("B3").
+     */
+
+    public static LargerThanLifeRule parse( String notation ) {
+        int radius = -1;
+        int center = -1;
+        int[] survival = null;
+        int[] birth = null;
+
+        for ( String part : notation.trim().toUpperCase().split( "," ) ){
+            part = part.trim();
+            if ( part.isEmpty() ) {
+                throw new IllegalArgumentException( "Empty part in rule: " + notation );
+            }
+            String value = part.substring( 1 );
+            switch ( part.charAt( 0 ) ) {
+                case 'R':
+                    radius = number( value , notation );
+                    break;
+                case 'C':
+                    int states = number( value , notation );
+                    if ( states != 0 && states != 2 ) {
+                        throw new IllegalArgumentException( "Only two states (C0 or C2) are supported: " + notation );
+                    }
+                    break;
+                case 'M':
+                    center = number( value , notation );
+                    break;
+                case 'S':
+                    survival = range( value , notation );
+                    break;
+                case 'B':
+                    birth = range( value , notation );
+                    break;
+                case 'N':
+                    if ( !value.equals( "M" ) ) {
+                        throw new IllegalArgumentException( "Only the Moore neighborhood (NM) is supported: " + notation );
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException( "Unknown part " + part + " in rule: " + notation );
+            }
+        }
+
+        if ( radius < 0 || survival == null || birth == null ) {
+            throw new IllegalArgumentException( "Rule needs R, S and B: " + notation );
+        }
+        return new LargerThanLifeRule( radius , center != 0 , survival[ 0 ] , survival[ 1 ] , birth[ 0 ] , birth[ 1 ] );
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    // Returns true if a cell counts itself as one of its neighbors (M1)
+
+    public boolean includesCenter() {
+        return includeCenter;
+    }
+
+    // Returns true if a cell in state alive with the given neighbor count is ALIVE next generation
+
+    public boolean next( boolean alive , int neighbors ) {
+        return alive ? neighbors >= survivalMin && neighbors <= survivalMax
+                     : neighbors >= birthMin && neighbors <= birthMax;
+    }
+
+    public String toString() {
+        return "R" + radius + ",C0,M" + ( includeCenter ? 1 : 0 ) + ",S" + survivalMin + ".." + survivalMax
+             + ",B" + birthMin + ".." + birthMax + ",NM";
+    }
+
+    public boolean equals( Object o ) {
+        if ( !( o instanceof LargerThanLifeRule ) ) {
+            return false;
+        }
+        LargerThanLifeRule other = ( LargerThanLifeRule ) o;
+        return radius == other.radius && includeCenter == other.includeCenter
+            && survivalMin == other.survivalMin && survivalMax == other.survivalMax
+            && birthMin == other.birthMin && birthMax == other.birthMax;
+    }
+
+    public int hashCode() {
+        int hash = radius * 2 + ( includeCenter ? 1 : 0 );
+        hash = hash * 31 + survivalMin;
+        hash = hash * 31 + survivalMax;
+        hash = hash * 31 + birthMin;
+        return hash * 31 + birthMax;
+    }
+
+    private static int number( String value , String notation ) {
+        try {
+            return Integer.parseInt( value );
+        } catch ( NumberFormatException e ) {
+            throw new IllegalArgumentException( "Expected a number, got " + value + " in rule: " + notation );
+        }
+    }
+
+    // Parses "34..58", "34-58" or "3" into { min, max }
+
+    private static int[] range( String value , String notation ) {
+        int dots = value.indexOf( ".." );
+        int dash = value.indexOf( '-' );
+        if ( dots >= 0 ) {
+            return new int[]{ number( value.substring( 0 , dots ) , notation ) , number( value.substring( dots + 2 ) , notation ) };
+        }
+        if ( dash >= 0 ) {
+            return new int[]{ number( value.substring( 0 , dash ) , notation ) , number( value.substring( dash + 1 ) , notation ) };
+        }
+        int count = number( value , notation );
+        return new int[]{ count , count };
+    }
+}
@@ -0,0 +1,45 @@
+package conwaygame;
+/*
+ * Interface for the different ways of storing and stepping a board.
+ *
+ * GameOfLife keeps its boolean[][] API no matter which engine is running underneath,
+ * an engine only has to know how to advance its own copy of the cells and hand them back.
+ */
+public interface LifeEngine extends AutoCloseable {
+
+    // Advances the board by one generation
+
+    void step();
+
+    // Advances the board by n generations, engines that can skip ahead faster override this
+
+    default void step( int n ) {
+        for ( int i = 0; i < n; i++ ){
+            step();
+        }
+    }
+
+    // Returns the status of the cell at (row,col): ALIVE or DEAD
+
+    boolean getCell( int row , int col );
+
+    // Returns the number of alive cells in the current generation
+
+    int getTotalAliveCells();
+
+    // Returns true if any cell is alive, engines that know more than their board (like UnboundedEngine) override this
+
+    default boolean isAlive() {
+        return getTotalAliveCells() > 0;
+    }
+
+    // Returns a fresh boolean[][] copy of the current generation
+
+    boolean[][] toGrid();
+
+    // Stops any threads the engine started and frees any memory it holds outside the heap.
+    // GameOfLife calls this on the engine it switches away from, the engine can't be used after it.
+
+    default void close() {
+    }
+}
@@ -0,0 +1,114 @@
+package conwaygame;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from primitive long keys to small counts, the counting
+ * counterpart of LongHashSet. Long.MIN_VALUE marks an empty slot.
+ */
+
+final class LongCountMap {
+
+    private long[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+
+    LongCountMap( int expected ) {
+        allocate( LongHashSet.tableSize( expected ) );
+    }
+
+    // Adds one to the count for key, starting from 0 if it isn't in the map yet
+
+    void increment( long key ) {
+        int slot = LongHashSet.hash( key ) & mask;
+        while ( keys[ slot ] != LongHashSet.EMPTY ) {
+            if ( keys[ slot ] == key ) {
+                counts[ slot ]++;
+                return;
+            }
+            slot = ( slot + 1 ) & mask;
+        }
+        keys[ slot ] = key;
+        counts[ slot ] = 1;
+        if ( ++size * 2 > keys.length ) {
+            grow();
+        }
+    }
+
+    boolean contains( long key ) {
+        int slot = LongHashSet.hash( key ) & mask;
+        while ( keys[ slot ] != LongHashSet.EMPTY ) {
+            if ( keys[ slot ] == key ) {
+                return true;
+            }
+            slot = ( slot + 1 ) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill( keys , LongHashSet.EMPTY );
+        size = 0;
+    }
+
+    // Empties the map and shrinks the table if it is more than four times what expected keys need,
+    // so a table that grew during a spike doesn't keep costing its full size to clear and walk
+
+    void clear( int expected ) {
+        int capacity = LongHashSet.tableSize( expected );
+        if ( keys.length > capacity * 4 ) {
+            allocate( capacity );
+            size = 0;
+        } else {
+            clear();
+        }
+    }
+
+    // Number of slots, walk 0..capacity() - 1 with keyAt/countAt to visit every entry
+
+    int capacity() {
+        return keys.length;
+    }
+
+    // Returns the key in slot, or LongHashSet.EMPTY
+
+    long keyAt( int slot ) {
+        return keys[ slot ];
+    }
+
+    int countAt( int slot ) {
+        return counts[ slot ];
+    }
+
+    private void allocate( int capacity ) {
+        keys = new long[ capacity ];
+        counts = new int[ capacity ];
+        Arrays.fill( keys , LongHashSet.EMPTY );
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[ oldKeys.length * 2 ];
+        counts = new int[ oldKeys.length * 2 ];
+        Arrays.fill( keys , LongHashSet.EMPTY );
+        mask = keys.length - 1;
+        for ( int i = 0; i < oldKeys.length; i++ ){
+            long key = oldKeys[ i ];
+            if ( key != LongHashSet.EMPTY ) {
+                int slot = LongHashSet.hash( key ) & mask;
+                while ( keys[ slot ] != LongHashSet.EMPTY ) {
+                    slot = ( slot + 1 ) & mask;
+                }
+                keys[ slot ] = key;
+                counts[ slot ] = oldCounts[ i ];
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package conwaygame;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of primitive longs (linear probing, power of two table).
+ * Used instead of HashSet<Long> so that adding a cell never boxes or allocates.
+ *
+ * Long.MIN_VALUE marks an empty slot, so it can't be stored in the set.
+ */
+
+final class LongHashSet {
+
+    static final long EMPTY = Long.MIN_VALUE;
+    static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+
+    LongHashSet( int expected ) {
+        allocate( tableSize( expected ) );
+    }
+
+    // Returns true if key was not in the set before
+
+    boolean add( long key ) {
+        int slot = hash( key ) & mask;
+        while ( keys[ slot ] != EMPTY ) {
+            if ( keys[ slot ] == key ) {
+                return false;
+            }
+            slot = ( slot + 1 ) & mask;
+        }
+        keys[ slot ] = key;
+        if ( ++size * 2 > keys.length ) {
+            grow();
+        }
+        return true;
+    }
+
+    boolean contains( long key ) {
+        int slot = hash( key ) & mask;
+        while ( keys[ slot ] != EMPTY ) {
+            if ( keys[ slot ] == key ) {
+                return true;
+            }
+            slot = ( slot + 1 ) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill( keys , EMPTY );
+        size = 0;
+    }
+
+    // Empties the set and shrinks the table if it is more than four times what expected keys need,
+    // so a table that grew during a spike doesn't keep costing its full size to clear and walk
+
+    void clear( int expected ) {
+        int capacity = tableSize( expected );
+        if ( keys.length > capacity * 4 ) {
+            allocate( capacity );
+            size = 0;
+        } else {
+            clear();
+        }
+    }
+
+    // Number of slots, walk 0..capacity() - 1 with keyAt to visit every key
+
+    int capacity() {
+        return keys.length;
+    }
+
+    // Returns the key in slot, or EMPTY
+
+    long keyAt( int slot ) {
+        return keys[ slot ];
+    }
+
+    private void allocate( int capacity ) {
+        keys = new long[ capacity ];
+        Arrays.fill( keys , EMPTY );
+        mask = capacity - 1;
+    }
+
+    // Smallest power of two table that holds expected keys at most half full
+
+    static int tableSize( int expected ) {
+        int capacity = MIN_CAPACITY;
+        while ( capacity < expected * 2 ) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void grow() {
+        long[] old = keys;
+        keys = new long[ old.length * 2 ];
+        Arrays.fill( keys , EMPTY );
+        mask = keys.length - 1;
+        for ( int i = 0; i < old.length; i++ ){
+            long key = old[ i ];
+            if ( key != EMPTY ) {
+                int slot = hash( key ) & mask;
+                while ( keys[ slot ] != EMPTY ) {
+                    slot = ( slot + 1 ) & mask;
+                }
+                keys[ slot ] = key;
+            }
+        }
+    }
+
+    // Fibonacci hashing, the high bits of the product are the well mixed ones
+
+    static int hash( long key ) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return ( int ) ( h ^ ( h >>> 32 ) );
+    }
+}
@@ -0,0 +1,198 @@
+package conwaygame;
+
+import java.util.Arrays;
+
+/**
+ * Engine that steps the board in 2x2 blocks using a precomputed table.
+ *
+ * The next generation of a 2x2 block only depends on the 4x4 square around it, and 16 cells
+ * fit in a 16-bit index. The table holds the 2x2 result for all 65536 possible squares, so
+ * one lookup replaces evaluating the rule for four cells. The square is slid two columns
+ * at a time, reusing half of the previous index.
+ *
+ * The board is stored like HaloEngine: a flat byte[] with one halo row/column on the top
+ * and left and two on the bottom and right (so boards with an odd size still have a full
+ * 4x4 square around their last block), all refreshed from the opposite edges every generation.
+ * With Boundary.DEAD the halo is cleared instead.
+ */
+
+public class LookupTableEngine implements LifeEngine {
+
+    // Row r, column c of the 4x4 square is bit ( 3 - r ) * 4 + ( 3 - c ) of the index.
+    // The result has (1,1) in bit 0, (1,2) in bit 1, (2,1) in bit 2 and (2,2) in bit 3.
+
+    private static final byte[] CONWAY_TABLE = buildTable( Rule.CONWAY );
+
+    private final byte[] table;
+
+    // Returns the 2x2 result of every 4x4 square under rule
+
+    private static byte[] buildTable( Rule rule ) {
+        byte[] table = new byte[ 1 << 16 ];
+        for ( int index = 0; index < table.length; index++ ){
+            int result = 0;
+            for ( int r = 1; r <= 2; r++ ){
+                for ( int c = 1; c <= 2; c++ ){
+                    int count = 0;
+                    for ( int dr = -1; dr <= 1; dr++ ){
+                        for ( int dc = -1; dc <= 1; dc++ ){
+                            if ( dr != 0 || dc != 0 ) {
+                                count += bit( index , r + dr , c + dc );
+                            }
+                        }
+                    }
+                    if ( rule.next( bit( index , r , c ) == 1 , count ) ) {
+                        result |= 1 << ( ( r - 1 ) * 2 + ( c - 1 ) );
+                    }
+                }
+            }
+            table[ index ] = ( byte ) result;
+        }
+        return table;
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int stride; // Length of one padded row, cols + 3
+    private final int blockRows;
+    private final int blockCols;
+    private byte[] current; // The current generation, cell (row,col) is at (row + 1) * stride + col + 1
+    private byte[] next;
+    private int totalAliveCells;
+    private final boolean torus;
+
+    public LookupTableEngine( boolean[][] grid ) {
+        this( grid , Boundary.TORUS , Rule.CONWAY );
+    }
+
+    public LookupTableEngine( boolean[][] grid , Boundary boundary , Rule rule ) {
+        table = rule.isConway() ? CONWAY_TABLE : buildTable( rule );
+        torus = boundary == Boundary.TORUS;
+        rows = grid.length;
+        cols = grid[ 0 ].length;
+        stride = cols + 3;
+        blockRows = ( rows + 1 ) / 2;
+        blockCols = ( cols + 1 ) / 2;
+        current = new byte[ ( rows + 3 ) * stride ];
+        next = new byte[ ( rows + 3 ) * stride ];
+
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                if ( grid[ i ][ j ] ) {
+                    current[ index( i , j ) ] = 1;
+                    totalAliveCells++;
+                }
+            }
+        }
+    }
+
+    public void step() {
+        if ( torus ) {
+            refreshHalo( current );
+        } else {
+            clearHalo( current );
+        }
+
+        byte[] cells = current;
+        byte[] out = next;
+        byte[] table = this.table;
+        int count = 0;
+
+        // On boards with an odd size the last block hangs one cell off the board, those cells land
+        // in the halo (which gets overwritten anyway) and are masked out of the count
+
+        int lastRowMask = rows % 2 == 0 ? 0xF : 0x3;
+        int lastColMask = cols % 2 == 0 ? 0xF : 0x5;
+
+        for ( int br = 0; br < blockRows; br++ ){
+            int row0 = 2 * br * stride; // Padded row above the block
+            int row1 = row0 + stride;
+            int row2 = row1 + stride;
+            int row3 = row2 + stride;
+            int rowMask = br == blockRows - 1 ? lastRowMask : 0xF;
+
+            // Start with the first two columns of the square in the low half of each row's nibble
+
+            int index = ( cells[ row0 ] << 13 ) | ( cells[ row0 + 1 ] << 12 )
+                      | ( cells[ row1 ] << 9 ) | ( cells[ row1 + 1 ] << 8 )
+                      | ( cells[ row2 ] << 5 ) | ( cells[ row2 + 1 ] << 4 )
+                      | ( cells[ row3 ] << 1 ) | cells[ row3 + 1 ];
+
+            for ( int bc = 0; bc < blockCols; bc++ ){
+                int col = 2 * bc + 2;
+                index = ( ( index << 2 ) & 0xCCCC )
+                      | ( cells[ row0 + col ] << 13 ) | ( cells[ row0 + col + 1 ] << 12 )
+                      | ( cells[ row1 + col ] << 9 ) | ( cells[ row1 + col + 1 ] << 8 )
+                      | ( cells[ row2 + col ] << 5 ) | ( cells[ row2 + col + 1 ] << 4 )
+                      | ( cells[ row3 + col ] << 1 ) | cells[ row3 + col + 1 ];
+
+                int result = table[ index ];
+                int k = row1 + col - 1;
+                out[ k ] = ( byte ) ( result & 1 );
+                out[ k + 1 ] = ( byte ) ( ( result >>> 1 ) & 1 );
+                out[ k + stride ] = ( byte ) ( ( result >>> 2 ) & 1 );
+                out[ k + stride + 1 ] = ( byte ) ( result >>> 3 );
+
+                int mask = bc == blockCols - 1 ? rowMask & lastColMask : rowMask;
+                count += Integer.bitCount( result & mask );
+            }
+        }
+
+        current = out;
+        next = cells;
+        totalAliveCells = count;
+    }
+
+    public boolean getCell( int row , int col ) {
+        return current[ index( row , col ) ] != 0;
+    }
+
+    public int getTotalAliveCells() {
+        return totalAliveCells;
+    }
+
+    public boolean[][] toGrid() {
+        boolean[][] grid = new boolean[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                grid[ i ][ j ] = current[ index( i , j ) ] != 0;
+            }
+        }
+        return grid;
+    }
+
+    private int index( int row , int col ) {
+        return ( row + 1 ) * stride + col + 1;
+    }
+
+    // Fills the halo (column -1, columns cols and cols + 1, and the same rows) from the opposite edges
+
+    private void refreshHalo( byte[] cells ) {
+        for ( int i = 1; i <= rows; i++ ){
+            int start = i * stride;
+            cells[ start ] = cells[ start + cols ];
+            cells[ start + cols + 1 ] = cells[ start + 1 ];
+            cells[ start + cols + 2 ] = cells[ start + 1 + ( 1 % cols ) ];
+        }
+        System.arraycopy( cells , rows * stride , cells , 0 , stride );
+        System.arraycopy( cells , stride , cells , ( rows + 1 ) * stride , stride );
+        System.arraycopy( cells , ( 1 + ( 1 % rows ) ) * stride , cells , ( rows + 2 ) * stride , stride );
+    }
+
+    // Kills every halo cell, the overhanging blocks of an odd sized board may have written into it
+
+    private void clearHalo( byte[] cells ) {
+        for ( int i = 1; i <= rows; i++ ){
+            int start = i * stride;
+            cells[ start ] = 0;
+            cells[ start + cols + 1 ] = 0;
+            cells[ start + cols + 2 ] = 0;
+        }
+        Arrays.fill( cells , 0 , stride , ( byte ) 0 );
+        Arrays.fill( cells , ( rows + 1 ) * stride , cells.length , ( byte ) 0 );
+    }
+
+    private static int bit( int index , int r , int c ) {
+        return ( index >>> ( ( 3 - r ) * 4 + ( 3 - c ) ) ) & 1;
+    }
+}
@@ -0,0 +1,271 @@
+package conwaygame;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Bit-packed engine whose cells live outside the Java heap.
+ *
+ * Rows are packed the same way as BitPackedEngine (one bit per cell, 64 per long) but stored in
+ * direct buffers of at most 1 GB each, so the garbage collector never scans or copies them and
+ * a board isn't limited to 2^31 cells. A 100k x 100k board takes about 1.25 GB per generation
+ * (run with -XX:MaxDirectMemorySize large enough for two of them).
+ *
+ * Each generation streams through the board keeping only three rows on the heap at a time,
+ * and steps them with BitKernel. With Boundary.DEAD the rows past the top and bottom edges are all dead.
+ *
+ * close() frees the buffers right away instead of leaving them until the garbage collector happens to
+ * collect them (it uses sun.misc.Unsafe.invokeCleaner, looked up by reflection; without it the buffers are
+ * only dropped). GameOfLife closes the engine when it switches to another one.
+ */
+
+public class OffHeapEngine implements LifeEngine {
+
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+    private static final Object UNSAFE = unsafe();
+    private static final Method INVOKE_CLEANER = invokeCleaner();
+
+    private final int rows;
+    private final int cols;
+    private final int words; // longs per row
+    private final int segmentRows; // rows stored in each buffer
+    private LongBuffer[] current; // The current generation
+    private LongBuffer[] next; // Buffers the next generation is written into
+    private ByteBuffer[] memory; // The direct buffers behind current and next, freed by close()
+    private long population;
+    private final boolean torus;
+    private final Rule rule;
+
+    // Rows kept on the heap while stepping, reused every generation
+
+    private long[] up;
+    private long[] row;
+    private long[] down;
+    private long[] out;
+    private long[] first; // The row below the last row: row 0 on a torus, otherwise all dead
+
+    /**
+     * Creates an all dead board of the given size.
+     */
+
+    public OffHeapEngine( int rows , int cols ) {
+        this( rows , cols , Boundary.TORUS , Rule.CONWAY );
+    }
+
+    public OffHeapEngine( int rows , int cols , Boundary boundary , Rule rule ) {
+        if ( rows < 1 || cols < 1 ) {
+            throw new IllegalArgumentException( "Board must be at least 1x1: " + rows + "x" + cols );
+        }
+        this.rows = rows;
+        this.cols = cols;
+        torus = boundary == Boundary.TORUS;
+        this.rule = rule;
+        words = ( cols + 63 ) >>> 6;
+        segmentRows = ( int ) Math.max( 1 , Math.min( rows , MAX_SEGMENT_BYTES / ( words * 8L ) ) );
+        int segments = ( rows + segmentRows - 1 ) / segmentRows;
+        memory = new ByteBuffer[ 2 * segments ];
+        current = allocate( 0 );
+        next = allocate( segments );
+
+        up = new long[ words ];
+        row = new long[ words ];
+        down = new long[ words ];
+        out = new long[ words ];
+        first = new long[ words ];
+    }
+
+    public OffHeapEngine( boolean[][] grid ) {
+        this( grid , Boundary.TORUS , Rule.CONWAY );
+    }
+
+    public OffHeapEngine( boolean[][] grid , Boundary boundary , Rule rule ) {
+        this( grid.length , grid[ 0 ].length , boundary , rule );
+        for ( int i = 0; i < rows; i++ ){
+            loadRow( grid[ i ] , row );
+            writeRow( current , i , row );
+        }
+    }
+
+    /**
+     * Loads the board straight from a text file in the same format GameOfLife( file ) reads,
+     * one row at a time, so the board never has to fit in a boolean[][].
+     */
+
+    public static OffHeapEngine fromFile( String file ) {
+        return fromFile( file , Boundary.TORUS , Rule.CONWAY );
+    }
+
+    public static OffHeapEngine fromFile( String file , Boundary boundary , Rule rule ) {
+        StdIn.setFile( file );
+        int rows = StdIn.readInt();
+        int columns = StdIn.readInt();
+
+        OffHeapEngine engine = new OffHeapEngine( rows , columns , boundary , rule );
+        boolean[] line = new boolean[ columns ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < columns; j++ ){
+                line[ j ] = StdIn.readBoolean();
+            }
+            engine.loadRow( line , engine.row );
+            engine.writeRow( engine.current , i , engine.row );
+        }
+        return engine;
+    }
+
+    public void step() {
+        long count = 0;
+
+        readRow( current , 0 , row );
+        if ( torus ) {
+            readRow( current , rows - 1 , up );
+            System.arraycopy( row , 0 , first , 0 , words );
+        } else {
+            Arrays.fill( up , 0L );
+            Arrays.fill( first , 0L );
+        }
+
+        for ( int i = 0; i < rows; i++ ){
+            if ( i < rows - 1 ) {
+                readRow( current , i + 1 , down );
+            } else {
+                System.arraycopy( first , 0 , down , 0 , words );
+            }
+            count += BitKernel.stepRow( up , row , down , out , cols , torus , rule );
+            writeRow( next , i , out );
+
+            // Slide the window down one row
+
+            long[] temp = up;
+            up = row;
+            row = down;
+            down = temp;
+        }
+
+        LongBuffer[] temp = current;
+        current = next;
+        next = temp;
+        population = count;
+    }
+
+    public boolean getCell( int row , int col ) {
+        LongBuffer segment = current[ row / segmentRows ];
+        long word = segment.get( ( row % segmentRows ) * words + ( col >>> 6 ) );
+        return ( ( word >>> col ) & 1L ) != 0;
+    }
+
+    /**
+     * Sets the cell at (row,col) to ALIVE or DEAD.
+     */
+
+    public void setCell( int row , int col , boolean alive ) {
+        LongBuffer segment = current[ row / segmentRows ];
+        int index = ( row % segmentRows ) * words + ( col >>> 6 );
+        long word = segment.get( index );
+        long updated = alive ? word | ( 1L << col ) : word & ~( 1L << col );
+        segment.put( index , updated );
+        population += Long.bitCount( updated ) - Long.bitCount( word );
+    }
+
+    // Returns the number of alive cells, which can be more than an int holds on huge boards
+
+    public long getPopulation() {
+        return population;
+    }
+
+    public int getTotalAliveCells() {
+        return ( int ) Math.min( population , Integer.MAX_VALUE );
+    }
+
+    public boolean[][] toGrid() {
+        boolean[][] grid = new boolean[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            readRow( current , i , row );
+            for ( int j = 0; j < cols; j++ ){
+                grid[ i ][ j ] = ( ( row[ j >>> 6 ] >>> j ) & 1L ) != 0;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Frees the off-heap buffers. The engine can't be used after this.
+     */
+
+    public void close() {
+        if ( memory == null ) {
+            return;
+        }
+        for ( ByteBuffer buffer : memory ){
+            if ( UNSAFE != null && INVOKE_CLEANER != null ) {
+                try {
+                    INVOKE_CLEANER.invoke( UNSAFE , buffer );
+                } catch ( ReflectiveOperationException | RuntimeException e ) {
+                    // Leave this one to the garbage collector
+                }
+            }
+        }
+        memory = null;
+        current = null;
+        next = null;
+    }
+
+    // Allocates a buffer for every segment of the board, remembering them in memory from index first on
+
+    private LongBuffer[] allocate( int first ) {
+        int segments = ( rows + segmentRows - 1 ) / segmentRows;
+        LongBuffer[] buffers = new LongBuffer[ segments ];
+        for ( int s = 0; s < segments; s++ ){
+            int segmentSize = Math.min( segmentRows , rows - s * segmentRows );
+            ByteBuffer bytes = ByteBuffer.allocateDirect( segmentSize * words * 8 ).order( ByteOrder.nativeOrder() );
+            memory[ first + s ] = bytes;
+            buffers[ s ] = bytes.asLongBuffer();
+        }
+        return buffers;
+    }
+
+    // Returns sun.misc.Unsafe, or null if this JDK doesn't let us have it
+
+    private static Object unsafe() {
+        try {
+            Field field = Class.forName( "sun.misc.Unsafe" ).getDeclaredField( "theUnsafe" );
+            field.setAccessible( true );
+            return field.get( null );
+        } catch ( ReflectiveOperationException | RuntimeException e ) {
+            return null;
+        }
+    }
+
+    // Returns Unsafe.invokeCleaner( ByteBuffer ), which frees a direct buffer, or null if there is none
+
+    private static Method invokeCleaner() {
+        try {
+            return Class.forName( "sun.misc.Unsafe" ).getMethod( "invokeCleaner" , ByteBuffer.class );
+        } catch ( ReflectiveOperationException | RuntimeException e ) {
+            return null;
+        }
+    }
+
+    // Packs a row of cells into words and adds them to the population
+
+    private void loadRow( boolean[] cells , long[] target ) {
+        Arrays.fill( target , 0L );
+        for ( int j = 0; j < cols; j++ ){
+            if ( cells[ j ] ) {
+                target[ j >>> 6 ] |= 1L << j;
+                population++;
+            }
+        }
+    }
+
+    private void readRow( LongBuffer[] buffers , int i , long[] target ) {
+        buffers[ i / segmentRows ].get( ( i % segmentRows ) * words , target );
+    }
+
+    private void writeRow( LongBuffer[] buffers , int i , long[] source ) {
+        buffers[ i / segmentRows ].put( ( i % segmentRows ) * words , source );
+    }
+}
@@ -0,0 +1,332 @@
+package conwaygame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Engine that steps the board in tiles on worker tasks, with a Phaser as the barrier between generations.
+ *
+ * The board is stored like HaloEngine (a flat byte[] with a one cell halo). For step( n ) each worker steps
+ * its tiles with HaloEngine's kernel and then waits on the phaser. When the last worker arrives, onAdvance()
+ * swaps the buffers, refreshes the halo and adds up the tile counts while every worker is parked, and the
+ * next generation starts. When the JDK has virtual threads (Executors.newVirtualThreadPerTaskExecutor, looked
+ * up by reflection so this still builds on older JDKs) every tile is its own worker. Otherwise there is one
+ * platform thread per core and each one steps a run of consecutive tiles, so a huge board doesn't need
+ * thousands of threads.
+ *
+ * stepAsync( n ) runs the whole thing on a background thread so a UI thread can keep drawing. It can ask for
+ * requestSnapshot(), which is filled in at the next barrier so it never sees a half-stepped board.
+ * getTileNanos() shows how long each tile spent computing, and getTileWaitNanos() how long each worker then
+ * waited for the others, under its last tile.
+ */
+
+public class PhaserTileEngine implements LifeEngine {
+
+    public static final int DEFAULT_TILE_SIZE = 64;
+    private static final int WORKERS_PER_PHASER = 1024; // A Phaser holds at most 65535 parties, bigger boards get a tree of them
+    private static final int PLATFORM_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private final int rows;
+    private final int cols;
+    private final int stride; // Length of one padded row, cols + 2
+    private final int tileSize;
+    private final int tileRows;
+    private final int tileCols;
+    private final boolean torus;
+    private final Rule rule;
+    private volatile byte[] current; // The current generation, cell (row,col) is at (row + 1) * stride + col + 1
+    private volatile byte[] next;
+    private volatile int totalAliveCells;
+    private volatile long generation;
+
+    private final int[] tileCounts; // Alive cells each tile wrote in the generation being stepped
+    private final long[] tileNanos; // Total time each tile spent stepping
+    private final long[] tileWaitNanos; // Total time each worker spent waiting at the barrier, at its last tile
+
+    private final ExecutorService executor; // Runs the workers
+    private final boolean virtualThreads; // One worker per tile on virtual threads, otherwise one per core
+    private ExecutorService background; // Runs stepAsync(), created when first needed
+    private boolean running;
+    private final List<CompletableFuture<boolean[][]>> snapshots = new ArrayList<>();
+
+    public PhaserTileEngine( boolean[][] grid , Boundary boundary , Rule rule ) {
+        this( grid , boundary , rule , DEFAULT_TILE_SIZE );
+    }
+
+    public PhaserTileEngine( boolean[][] grid , Boundary boundary , Rule rule , int tileSize ) {
+        if ( tileSize < 1 ) {
+            throw new IllegalArgumentException( "Tile size must be at least 1: " + tileSize );
+        }
+        this.rule = rule;
+        this.tileSize = tileSize;
+        torus = boundary == Boundary.TORUS;
+        rows = grid.length;
+        cols = grid[ 0 ].length;
+        stride = cols + 2;
+        tileRows = ( rows + tileSize - 1 ) / tileSize;
+        tileCols = ( cols + tileSize - 1 ) / tileSize;
+        tileCounts = new int[ tileRows * tileCols ];
+        tileNanos = new long[ tileRows * tileCols ];
+        tileWaitNanos = new long[ tileRows * tileCols ];
+
+        byte[] cells = new byte[ ( rows + 2 ) * stride ];
+        int count = 0;
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                if ( grid[ i ][ j ] ) {
+                    cells[ ( i + 1 ) * stride + j + 1 ] = 1;
+                    count++;
+                }
+            }
+        }
+        if ( torus ) {
+            HaloKernel.refreshHalo( cells , rows , cols );
+        }
+        current = cells;
+        next = new byte[ cells.length ];
+        totalAliveCells = count;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtualThreads ? virtual : newPlatformThreadExecutor();
+    }
+
+    public void step() {
+        step( 1 );
+    }
+
+    /**
+     * Runs n generations, with the workers meeting at a phaser after each. Blocks until they are done.
+     */
+
+    public void step( int n ) {
+        if ( n <= 0 ) {
+            return;
+        }
+        synchronized ( this ) {
+            running = true;
+        }
+
+        // Workers arrive at their group's phaser, the last of each group arrives at the root for them
+
+        int tiles = tileRows * tileCols;
+        int workers = virtualThreads ? tiles : Math.min( tiles , PLATFORM_THREADS );
+        Phaser root = new Phaser() {
+            protected boolean onAdvance( int phase , int parties ) {
+                finishGeneration();
+                return phase + 1 >= n || parties == 0;
+            }
+        };
+        Phaser[] groups = new Phaser[ ( workers + WORKERS_PER_PHASER - 1 ) / WORKERS_PER_PHASER ];
+        for ( int k = 0; k < groups.length; k++ ){
+            groups[ k ] = new Phaser( root , Math.min( WORKERS_PER_PHASER , workers - k * WORKERS_PER_PHASER ) );
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for ( int w = 0; w < workers; w++ ){
+            int first = ( int ) ( ( long ) tiles * w / workers );
+            int last = ( int ) ( ( long ) tiles * ( w + 1 ) / workers );
+            Phaser phaser = groups[ w / WORKERS_PER_PHASER ];
+            tasks.add( () -> {
+                try {
+                    for ( int g = 0; g < n && !phaser.isTerminated(); g++ ){
+                        long finished = System.nanoTime();
+                        for ( int tile = first; tile < last; tile++ ){
+                            long start = finished;
+                            tileCounts[ tile ] = stepTile( tile );
+                            finished = System.nanoTime();
+                            tileNanos[ tile ] += finished - start;
+                        }
+                        phaser.arriveAndAwaitAdvance();
+                        tileWaitNanos[ last - 1 ] += System.nanoTime() - finished; // The worker waits once, after its last tile
+                    }
+                } catch ( RuntimeException | Error e ) {
+                    phaser.forceTermination(); // Let the other workers out instead of waiting forever
+                    throw e;
+                }
+                return null;
+            } );
+        }
+
+        try {
+            for ( Future<Void> result : executor.invokeAll( tasks ) ){
+                result.get();
+            }
+        } catch ( ExecutionException e ) {
+            throw new IllegalStateException( "A tile failed to step" , e.getCause() );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Interrupted while stepping" , e );
+        } finally {
+            synchronized ( this ) {
+                running = false;
+                serveSnapshots();
+            }
+        }
+    }
+
+    /**
+     * Runs step( n ) on a background thread and returns right away, so the calling (UI) thread stays free.
+     * Only one run should be in flight at a time.
+     */
+
+    public synchronized CompletableFuture<Void> stepAsync( int n ) {
+        if ( background == null ) {
+            background = Executors.newSingleThreadExecutor( runnable -> {
+                Thread thread = new Thread( runnable , "phaser-tile-engine" );
+                thread.setDaemon( true );
+                return thread;
+            } );
+        }
+        return CompletableFuture.runAsync( () -> step( n ) , background );
+    }
+
+    /**
+     * Returns a copy of the board as of a whole generation: right away if nothing is running,
+     * otherwise at the next barrier between generations.
+     */
+
+    public synchronized CompletableFuture<boolean[][]> requestSnapshot() {
+        CompletableFuture<boolean[][]> snapshot = new CompletableFuture<>();
+        snapshots.add( snapshot );
+        if ( !running ) {
+            serveSnapshots();
+        }
+        return snapshot;
+    }
+
+    public boolean getCell( int row , int col ) {
+        return current[ ( row + 1 ) * stride + col + 1 ] != 0;
+    }
+
+    public int getTotalAliveCells() {
+        return totalAliveCells;
+    }
+
+    // Returns the number of generations stepped so far
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public boolean[][] toGrid() {
+        byte[] cells = current;
+        boolean[][] grid = new boolean[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                grid[ i ][ j ] = cells[ ( i + 1 ) * stride + j + 1 ] != 0;
+            }
+        }
+        return grid;
+    }
+
+    // Returns the number of tiles, tiles are numbered row by row
+
+    public int getTileCount() {
+        return tileRows * tileCols;
+    }
+
+    // Returns how long each tile has spent stepping its cells, in nanoseconds
+
+    public long[] getTileNanos() {
+        return tileNanos.clone();
+    }
+
+    // Returns how long each worker has spent waiting at the barrier for slower ones, in nanoseconds, under the last tile
+    // it steps. Every other tile shows 0. With one worker per tile (virtual threads) that is every tile's own wait.
+
+    public long[] getTileWaitNanos() {
+        return tileWaitNanos.clone();
+    }
+
+    // Stops the threads behind this engine
+
+    public synchronized void close() {
+        executor.shutdown();
+        if ( background != null ) {
+            background.shutdown();
+        }
+    }
+
+    // Steps one tile from current into next and returns how many of its cells are alive
+
+    private int stepTile( int tile ) {
+        byte[] cells = current;
+        byte[] out = next;
+        int row0 = ( tile / tileCols ) * tileSize;
+        int col0 = ( tile % tileCols ) * tileSize;
+        int width = Math.min( tileSize , cols - col0 );
+        int count = 0;
+        for ( int i = row0; i < Math.min( row0 + tileSize , rows ); i++ ){
+            int start = ( i + 1 ) * stride + col0 + 1;
+            count += HaloEngine.stepRow( cells , out , start , start + width , stride , rule );
+        }
+        return count;
+    }
+
+    // Runs in the last tile to arrive, while all the others wait at the barrier
+
+    private void finishGeneration() {
+        byte[] temp = current;
+        byte[] stepped = next;
+        if ( torus ) {
+            HaloKernel.refreshHalo( stepped , rows , cols );
+        }
+        next = temp;
+        current = stepped;
+
+        int count = 0;
+        for ( int tileCount : tileCounts ){
+            count += tileCount;
+        }
+        totalAliveCells = count;
+        generation++;
+
+        synchronized ( this ) {
+            serveSnapshots();
+        }
+    }
+
+    private void serveSnapshots() {
+        if ( snapshots.isEmpty() ) {
+            return;
+        }
+        boolean[][] grid = toGrid();
+        for ( CompletableFuture<boolean[][]> snapshot : snapshots ){
+            snapshot.complete( grid );
+        }
+        snapshots.clear();
+    }
+
+    // Returns a virtual thread per task executor, or null if this JDK has no virtual threads
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return ( ExecutorService ) Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" ).invoke( null );
+        } catch ( ReflectiveOperationException | RuntimeException e ) {
+            return null;
+        }
+    }
+
+    // One daemon thread per core, started on demand and let go after a while without work
+
+    private static ExecutorService newPlatformThreadExecutor() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor( PLATFORM_THREADS , PLATFORM_THREADS , 30 , TimeUnit.SECONDS ,
+                                                          new LinkedBlockingQueue<>() , runnable -> {
+            Thread thread = new Thread( runnable , "phaser-tile" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        pool.allowCoreThreadTimeOut( true );
+        return pool;
+    }
+}
@@ -0,0 +1,194 @@
+package conwaygame;
+
+/**
+ * A Life-like (outer totalistic) rule in B/S notation, such as B3/S23 (Conway) or B36/S23 (HighLife).
+ *
+ * The rule is compiled once into a 9-bit birth mask and a 9-bit survival mask (bit n is set
+ * when n neighbors cause a birth or let a cell survive), plus a small lookup table and, for the
+ * bit-sliced kernels, one word per neighbor count, so the engines pay the same per-cell cost
+ * for any rule however many counts it lists.
+ */
+
+public final class Rule {
+
+    public static final Rule CONWAY = new Rule( 1 << 3 , ( 1 << 2 ) | ( 1 << 3 ) );
+
+    private final int birth; // bit n set if a DEAD cell with n alive neighbors becomes ALIVE
+    private final int survival; // bit n set if an ALIVE cell with n alive neighbors stays ALIVE
+    private final byte[] nextState; // nextState[ alive * 16 + neighbors ], 1 for ALIVE
+    private final int[] birthCounts; // The neighbor counts in birth
+    private final int[] survivalCounts;
+    private final long[] bornWords; // bornWords[ n ] is all ones if n neighbors bring a DEAD cell to life, else 0
+    private final long[] flipWords; // flipWords[ n ] is all ones if an ALIVE cell with n neighbors ends up the other way
+
+    private Rule( int birth , int survival ) {
+        this.birth = birth;
+        this.survival = survival;
+        nextState = new byte[ 32 ];
+        for ( int n = 0; n <= 8; n++ ){
+            nextState[ n ] = ( byte ) ( ( birth >>> n ) & 1 );
+            nextState[ 16 + n ] = ( byte ) ( ( survival >>> n ) & 1 );
+        }
+        birthCounts = counts( birth );
+        survivalCounts = counts( survival );
+        bornWords = new long[ 9 ];
+        flipWords = new long[ 9 ];
+        for ( int n = 0; n <= 8; n++ ){
+            bornWords[ n ] = -( ( birth >>> n ) & 1L );
+            flipWords[ n ] = -( ( ( birth ^ survival ) >>> n ) & 1L );
+        }
+    }
+
+    /**
+     * Parses a rule such as "B3/S23", "b36/s23", "S23/B3" or "B2/S". The older "23/3" form
+     * (survival/birth) is also accepted.
+     */
+
+    public static Rule parse( String notation ) {
+        String text = notation.trim().toUpperCase();
+        String[] parts = text.split( "/" , -1 );
+        if ( parts.length != 2 ) {
+            throw new IllegalArgumentException( "Rule must look like B3/S23: " + notation );
+        }
+
+        int birth = -1;
+        int survival = -1;
+        for ( int i = 0; i < 2; i++ ){
+            String part = parts[ i ];
+            if ( part.startsWith( "B" ) && birth < 0 ) {
+                birth = mask( part.substring( 1 ) , notation );
+            } else if ( part.startsWith( "S" ) && survival < 0 ) {
+                survival = mask( part.substring( 1 ) , notation );
+            }
+        }
+
+        if ( birth < 0 && survival < 0 ) {
+
+            // No letters at all: survival/birth
+
+            survival = mask( parts[ 0 ] , notation );
+            birth = mask( parts[ 1 ] , notation );
+        }
+        if ( birth < 0 || survival < 0 ) {
+            throw new IllegalArgumentException( "Rule must have one B part and one S part: " + notation );
+        }
+
+        if ( birth == CONWAY.birth && survival == CONWAY.survival ) {
+            return CONWAY;
+        }
+        return new Rule( birth , survival );
+    }
+
+    // Returns true if a cell in state alive with the given number of alive neighbors is ALIVE next generation
+
+    public boolean next( boolean alive , int neighbors ) {
+        return ( ( ( alive ? survival : birth ) >>> neighbors ) & 1 ) != 0;
+    }
+
+    // Returns the 9-bit birth mask, bit n is set if n neighbors bring a DEAD cell to life
+
+    public int getBirthMask() {
+        return birth;
+    }
+
+    // Returns the 9-bit survival mask, bit n is set if an ALIVE cell with n neighbors stays ALIVE
+
+    public int getSurvivalMask() {
+        return survival;
+    }
+
+    // Returns true if DEAD cells with no alive neighbors are born, which needs special care on infinite or sparse boards
+
+    public boolean bornWithoutNeighbors() {
+        return ( birth & 1 ) != 0;
+    }
+
+    public boolean isConway() {
+        return birth == CONWAY.birth && survival == CONWAY.survival;
+    }
+
+    /**
+     * Returns the table indexed by alive * 16 + neighbors (alive is 0 or 1) holding 1 where the cell is ALIVE next generation.
+     * The array is shared, don't write to it.
+     */
+
+    byte[] nextStateTable() {
+        return nextState;
+    }
+
+    /**
+     * Bit-sliced version of next( alive , neighbors ) for 64 cells at once: bit i of ones, twos, fours and
+     * eights is the neighbor count of cell i in binary, bit i of alive is its state.
+     *
+     * Any rule is the same tree of selects: the next state for each count (0, all ones, alive or ~alive)
+     * is picked by ones between neighboring counts, then by twos, fours and eights, so a rule with many
+     * counts costs no more than one with few. Eights is only set for a count of 8, when the others are 0.
+     */
+
+    long apply( long ones , long twos , long fours , long eights , long alive ) {
+        if ( this == CONWAY ) {
+            return twos & ~fours & ~eights & ( ones | alive );
+        }
+        long[] born = bornWords;
+        long[] flip = flipWords;
+        long upTo1 = select( ones , born[ 0 ] ^ ( flip[ 0 ] & alive ) , born[ 1 ] ^ ( flip[ 1 ] & alive ) );
+        long upTo3 = select( ones , born[ 2 ] ^ ( flip[ 2 ] & alive ) , born[ 3 ] ^ ( flip[ 3 ] & alive ) );
+        long upTo5 = select( ones , born[ 4 ] ^ ( flip[ 4 ] & alive ) , born[ 5 ] ^ ( flip[ 5 ] & alive ) );
+        long upTo7 = select( ones , born[ 6 ] ^ ( flip[ 6 ] & alive ) , born[ 7 ] ^ ( flip[ 7 ] & alive ) );
+        long low = select( fours , select( twos , upTo1 , upTo3 ) , select( twos , upTo5 , upTo7 ) );
+        return select( eights , low , born[ 8 ] ^ ( flip[ 8 ] & alive ) );
+    }
+
+    // Bits of whenClear where condition is 0 and of whenSet where it is 1
+
+    private static long select( long condition , long whenClear , long whenSet ) {
+        return whenClear ^ ( ( whenClear ^ whenSet ) & condition );
+    }
+
+    public String toString() {
+        StringBuilder text = new StringBuilder( "B" );
+        for ( int n : birthCounts ){
+            text.append( n );
+        }
+        text.append( "/S" );
+        for ( int n : survivalCounts ){
+            text.append( n );
+        }
+        return text.toString();
+    }
+
+    public boolean equals( Object o ) {
+        if ( !( o instanceof Rule ) ) {
+            return false;
+        }
+        Rule other = ( Rule ) o;
+        return birth == other.birth && survival == other.survival;
+    }
+
+    public int hashCode() {
+        return birth * 512 + survival;
+    }
+
+    private static int mask( String digits , String notation ) {
+        int result = 0;
+        for ( int i = 0; i < digits.length(); i++ ){
+            char c = digits.charAt( i );
+            if ( c < '0' || c > '8' ) {
+                throw new IllegalArgumentException( "Neighbor counts must be 0-8: " + notation );
+            }
+            result |= 1 << ( c - '0' );
+        }
+        return result;
+    }
+
+    private static int[] counts( int mask ) {
+        int[] result = new int[ Integer.bitCount( mask ) ];
+        int k = 0;
+        for ( int n = 0; n <= 8; n++ ){
+            if ( ( ( mask >>> n ) & 1 ) != 0 ) {
+                result[ k++ ] = n;
+            }
+        }
+        return result;
+    }
+}
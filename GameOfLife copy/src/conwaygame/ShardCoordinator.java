@@ -0,0 +1,168 @@
+package conwaygame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs a board too big for one heap as N worker JVMs on the same machine (see ShardWorker).
+ *
+ * The coordinator reads the board file (same format as GameOfLife( file )) one row at a time and
+ * streams it out as row bands, one per worker, so it never holds the whole board itself. The workers
+ * exchange their edge rows with each other directly every generation. At the end each reports how long
+ * it spent computing and how long waiting for its neighbors' rows, and sends its band back, which is
+ * written to the output file if one was given.
+ *
+ * Usage: java conwaygame.ShardCoordinator file workers generations [TORUS|DEAD] [rule] [outputFile]
+ * Worker JVMs get the coordinator's classpath, add options like -Xmx through JAVA_TOOL_OPTIONS.
+ */
+
+public class ShardCoordinator {
+
+    private ShardCoordinator() {
+    }
+
+    public static void main( String[] args ) throws Exception {
+        if ( args.length < 3 ) {
+            System.err.println( "Usage: java conwaygame.ShardCoordinator file workers generations [TORUS|DEAD] [rule] [outputFile]" );
+            System.exit( 1 );
+        }
+        String file = args[ 0 ];
+        int workers = Integer.parseInt( args[ 1 ] );
+        int generations = Integer.parseInt( args[ 2 ] );
+        Boundary boundary = args.length > 3 ? Boundary.valueOf( args[ 3 ].toUpperCase() ) : Boundary.TORUS;
+        Rule rule = args.length > 4 ? Rule.parse( args[ 4 ] ) : Rule.CONWAY;
+        String output = args.length > 5 ? args[ 5 ] : null;
+
+        run( file , workers , generations , boundary , rule , output );
+    }
+
+    /**
+     * Runs generations generations of the board in file on workers worker processes and prints a report.
+     * @return long number of alive cells at the end
+     */
+
+    public static long run( String file , int workers , int generations , Boundary boundary , Rule rule , String output )
+            throws IOException, InterruptedException {
+        StdIn.setFile( file );
+        int rows = StdIn.readInt();
+        int cols = StdIn.readInt();
+        if ( workers < 1 || workers > rows ) {
+            throw new IllegalArgumentException( "Need between 1 and " + rows + " workers: " + workers );
+        }
+        int words = ( cols + 63 ) >>> 6;
+        boolean torus = boundary == Boundary.TORUS;
+
+        List<Process> processes = new ArrayList<>();
+        SocketChannel[] channels = new SocketChannel[ workers ];
+        int[] haloPorts = new int[ workers ];
+
+        try ( ServerSocketChannel server = ServerSocketChannel.open() ) {
+            server.bind( new InetSocketAddress( InetAddress.getLoopbackAddress() , 0 ) );
+            int port = ( ( InetSocketAddress ) server.getLocalAddress() ).getPort();
+
+            String java = System.getProperty( "java.home" ) + File.separator + "bin" + File.separator + "java";
+            for ( int w = 0; w < workers; w++ ){
+                ProcessBuilder builder = new ProcessBuilder( java , "-cp" , System.getProperty( "java.class.path" ) ,
+                    ShardWorker.class.getName() , Integer.toString( port ) , Integer.toString( w ) , rule.toString() , boundary.name() );
+                processes.add( builder.inheritIO().start() );
+            }
+
+            // Workers say hello in any order with their index and the port of their halo server
+
+            for ( int w = 0; w < workers; w++ ){
+                SocketChannel channel = server.accept();
+                int[] hello = ShardWorker.readInts( channel , 2 );
+                channels[ hello[ 0 ] ] = channel;
+                haloPorts[ hello[ 0 ] ] = hello[ 1 ];
+            }
+
+            // Send each worker its band, streamed straight from the file
+
+            long startNanos = System.nanoTime();
+            long[] row = new long[ words ];
+            ByteBuffer buffer = ShardWorker.rowBuffer( words );
+            for ( int w = 0; w < workers; w++ ){
+                boolean hasDown = torus ? workers > 1 : w < workers - 1;
+                boolean hasUp = torus ? workers > 1 : w > 0;
+                ShardWorker.writeInts( channels[ w ] , bandRows( rows , workers , w ) , cols , generations , workers ,
+                                       hasDown ? haloPorts[ ( w + 1 ) % workers ] : -1 , hasUp ? 1 : 0 );
+                for ( int i = 0; i < bandRows( rows , workers , w ); i++ ){
+                    Arrays.fill( row , 0L );
+                    for ( int j = 0; j < cols; j++ ){
+                        if ( StdIn.readBoolean() ) {
+                            row[ j >>> 6 ] |= 1L << j;
+                        }
+                    }
+                    ShardWorker.writeRow( channels[ w ] , buffer , row );
+                }
+            }
+
+            // Collect the reports and the final bands
+
+            PrintWriter out = output == null ? null : new PrintWriter( output );
+            if ( out != null ) {
+                out.println( rows + " " + cols );
+            }
+            long population = 0;
+            System.out.printf( "%-6s %8s %12s %12s %7s%n" , "shard" , "rows" , "compute ms" , "wait ms" , "wait %" );
+            for ( int w = 0; w < workers; w++ ){
+                long[] report = ShardWorker.readLongs( channels[ w ] , 3 );
+                double compute = report[ 0 ] / 1e6;
+                double wait = report[ 1 ] / 1e6;
+                population += report[ 2 ];
+                System.out.printf( "%-6d %8d %12.1f %12.1f %6.1f%%%n" , w , bandRows( rows , workers , w ) , compute , wait ,
+                                   compute + wait == 0 ? 0 : 100 * wait / ( compute + wait ) );
+
+                for ( int i = 0; i < bandRows( rows , workers , w ); i++ ){
+                    ShardWorker.readRow( channels[ w ] , buffer , row );
+                    if ( out != null ) {
+                        writeRow( out , row , cols );
+                    }
+                }
+            }
+            if ( out != null ) {
+                out.close();
+            }
+            System.out.printf( "%d generations of %dx%d on %d workers in %.1f ms, %d alive%n" , generations , rows , cols ,
+                               workers , ( System.nanoTime() - startNanos ) / 1e6 , population );
+
+            for ( Process process : processes ){
+                process.waitFor();
+            }
+            return population;
+        } finally {
+            for ( SocketChannel channel : channels ){
+                if ( channel != null ) {
+                    channel.close();
+                }
+            }
+            for ( Process process : processes ){
+                process.destroy();
+            }
+        }
+    }
+
+    // Number of rows in band w, the first rows % workers bands get one extra
+
+    private static int bandRows( int rows , int workers , int w ) {
+        return rows / workers + ( w < rows % workers ? 1 : 0 );
+    }
+
+    private static void writeRow( PrintWriter out , long[] row , int cols ) {
+        StringBuilder line = new StringBuilder();
+        for ( int j = 0; j < cols; j++ ){
+            line.append( ( ( row[ j >>> 6 ] >>> j ) & 1L ) != 0 ? "true" : "false" );
+            line.append( j < cols - 1 ? ' ' : '\n' );
+        }
+        out.print( line );
+    }
+}
@@ -0,0 +1,223 @@
+package conwaygame;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * One worker process of a sharded run, started by ShardCoordinator.
+ *
+ * The worker owns a band of consecutive rows, bit-packed like BitPackedEngine with one extra halo
+ * row above and below. Every generation it sends its first row to the worker above and its last
+ * row to the worker below, receives their edge rows into its halo rows, and steps the band with
+ * BitKernel. The workers form a ring (on a torus the last band's neighbor below is the first band),
+ * each one connecting to the worker below it and accepting the one above it over loopback TCP.
+ *
+ * Usage: java conwaygame.ShardWorker coordinatorPort index rule boundary
+ */
+
+public class ShardWorker {
+
+    private ShardWorker() {
+    }
+
+    public static void main( String[] args ) throws Exception {
+        int coordinatorPort = Integer.parseInt( args[ 0 ] );
+        int index = Integer.parseInt( args[ 1 ] );
+        Rule rule = Rule.parse( args[ 2 ] );
+        boolean torus = Boundary.valueOf( args[ 3 ] ) == Boundary.TORUS;
+
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        try ( ServerSocketChannel server = ServerSocketChannel.open();
+              SocketChannel coordinator = SocketChannel.open( new InetSocketAddress( loopback , coordinatorPort ) ) ) {
+
+            // Say hello with the port the worker above should connect to
+
+            server.bind( new InetSocketAddress( loopback , 0 ) );
+            writeInts( coordinator , index , ( ( InetSocketAddress ) server.getLocalAddress() ).getPort() );
+
+            // The coordinator answers with the band, the run, and the port of the worker below (-1 if none)
+
+            int[] header = readInts( coordinator , 6 );
+            int rows = header[ 0 ];
+            int cols = header[ 1 ];
+            int generations = header[ 2 ];
+            int workers = header[ 3 ];
+            int downPort = header[ 4 ];
+            boolean hasUp = header[ 5 ] != 0;
+            int words = ( cols + 63 ) >>> 6;
+
+            long[][] current = new long[ rows + 2 ][ words ];
+            long[][] next = new long[ rows + 2 ][ words ];
+            ByteBuffer buffer = rowBuffer( words );
+            for ( int i = 1; i <= rows; i++ ){
+                readRow( coordinator , buffer , current[ i ] );
+            }
+
+            SocketChannel down = downPort < 0 ? null : SocketChannel.open( new InetSocketAddress( loopback , downPort ) );
+            SocketChannel up = hasUp ? server.accept() : null;
+            boolean local = torus && workers == 1; // A single band on a torus is its own neighbor
+
+            // Writes go through their own thread so two workers sending big rows to each other can't both block
+
+            ExecutorService writer = Executors.newSingleThreadExecutor( runnable -> {
+                Thread thread = new Thread( runnable , "shard-writer-" + index );
+                thread.setDaemon( true );
+                return thread;
+            } );
+            ByteBuffer upOut = rowBuffer( words );
+            ByteBuffer downOut = rowBuffer( words );
+            ByteBuffer upIn = rowBuffer( words );
+            ByteBuffer downIn = rowBuffer( words );
+
+            long computeNanos = 0;
+            long waitNanos = 0;
+            long population = 0;
+
+            for ( int g = 0; g < generations; g++ ){
+                long start = System.nanoTime();
+
+                if ( local ) {
+                    System.arraycopy( current[ rows ] , 0 , current[ 0 ] , 0 , words );
+                    System.arraycopy( current[ 1 ] , 0 , current[ rows + 1 ] , 0 , words );
+                } else {
+                    long[] first = current[ 1 ];
+                    long[] last = current[ rows ];
+                    Future<?> sent = writer.submit( () -> {
+                        if ( up != null ) {
+                            writeRow( up , upOut , first );
+                        }
+                        if ( down != null ) {
+                            writeRow( down , downOut , last );
+                        }
+                        return null;
+                    } );
+                    if ( up != null ) {
+                        readRow( up , upIn , current[ 0 ] );
+                    }
+                    if ( down != null ) {
+                        readRow( down , downIn , current[ rows + 1 ] );
+                    }
+                    waitFor( sent );
+                }
+
+                long exchanged = System.nanoTime();
+                population = 0;
+                for ( int i = 1; i <= rows; i++ ){
+                    population += BitKernel.stepRow( current[ i - 1 ] , current[ i ] , current[ i + 1 ] , next[ i ] , cols , torus , rule );
+                }
+                long[][] temp = current;
+                current = next;
+                next = temp;
+
+                waitNanos += exchanged - start;
+                computeNanos += System.nanoTime() - exchanged;
+            }
+
+            if ( generations == 0 ) {
+                for ( int i = 1; i <= rows; i++ ){
+                    for ( long word : current[ i ] ){
+                        population += Long.bitCount( word );
+                    }
+                }
+            }
+
+            // Report back, then send the band so the coordinator can save it
+
+            writeLongs( coordinator , computeNanos , waitNanos , population );
+            for ( int i = 1; i <= rows; i++ ){
+                writeRow( coordinator , buffer , current[ i ] );
+            }
+
+            writer.shutdown();
+            if ( up != null ) {
+                up.close();
+            }
+            if ( down != null ) {
+                down.close();
+            }
+        }
+    }
+
+    private static void waitFor( Future<?> future ) throws IOException, InterruptedException {
+        try {
+            future.get();
+        } catch ( ExecutionException e ) {
+            throw new IOException( "Sending halo row failed" , e.getCause() );
+        }
+    }
+
+    // Helpers shared with ShardCoordinator, all numbers are sent in native byte order (both ends are on one machine)
+
+    static ByteBuffer rowBuffer( int words ) {
+        return ByteBuffer.allocateDirect( words * 8 ).order( ByteOrder.nativeOrder() );
+    }
+
+    static void writeRow( SocketChannel channel , ByteBuffer buffer , long[] row ) throws IOException {
+        buffer.clear();
+        buffer.asLongBuffer().put( row );
+        buffer.limit( row.length * 8 );
+        writeFully( channel , buffer );
+    }
+
+    static void readRow( SocketChannel channel , ByteBuffer buffer , long[] row ) throws IOException {
+        buffer.clear();
+        buffer.limit( row.length * 8 );
+        readFully( channel , buffer );
+        buffer.flip();
+        buffer.asLongBuffer().get( row );
+    }
+
+    static void writeInts( SocketChannel channel , int... values ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate( values.length * 4 ).order( ByteOrder.nativeOrder() );
+        buffer.asIntBuffer().put( values );
+        writeFully( channel , buffer );
+    }
+
+    static int[] readInts( SocketChannel channel , int count ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate( count * 4 ).order( ByteOrder.nativeOrder() );
+        readFully( channel , buffer );
+        buffer.flip();
+        int[] values = new int[ count ];
+        buffer.asIntBuffer().get( values );
+        return values;
+    }
+
+    static void writeLongs( SocketChannel channel , long... values ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate( values.length * 8 ).order( ByteOrder.nativeOrder() );
+        buffer.asLongBuffer().put( values );
+        writeFully( channel , buffer );
+    }
+
+    static long[] readLongs( SocketChannel channel , int count ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate( count * 8 ).order( ByteOrder.nativeOrder() );
+        readFully( channel , buffer );
+        buffer.flip();
+        long[] values = new long[ count ];
+        buffer.asLongBuffer().get( values );
+        return values;
+    }
+
+    private static void writeFully( SocketChannel channel , ByteBuffer buffer ) throws IOException {
+        while ( buffer.hasRemaining() ) {
+            channel.write( buffer );
+        }
+    }
+
+    private static void readFully( SocketChannel channel , ByteBuffer buffer ) throws IOException {
+        while ( buffer.hasRemaining() ) {
+            if ( channel.read( buffer ) < 0 ) {
+                throw new EOFException( "Shard connection closed early" );
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package conwaygame;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Engine for SmoothLife (see SmoothLifeRule), where every cell holds a double in [0, 1] instead of
+ * ALIVE or DEAD.
+ *
+ * The inner and neighborhood averages are convolutions of the field with a disk and a ring.
+ * Summing them directly costs O(R^2) per cell, so they are done with 2D FFTs instead: the field is
+ * transformed once, multiplied by the precomputed transforms of both kernels and transformed back,
+ * which is O(rows * cols * log) whatever the radius. The FFT is circular, so the board wraps exactly
+ * like the torus in GameOfLife. The two kernels are packed into one complex kernel (disk in the real
+ * part, ring in the imaginary part), so a generation is one forward and one inverse transform. Each
+ * transform runs the rows in parallel and then the columns in parallel.
+ *
+ * getCell/toGrid/getTotalAliveCells treat values of 0.5 and up as ALIVE.
+ */
+
+public class SmoothLifeEngine implements LifeEngine {
+
+    private final int rows;
+    private final int cols;
+    private final SmoothLifeRule rule;
+    private final Fft rowFft;
+    private final Fft colFft;
+    private final double[] kernelRe; // Transform of disk + i * ring, cell (row,col) at row * cols + col
+    private final double[] kernelIm;
+    private final double[] field; // The current generation
+    private final double[] workRe; // Scratch for the transforms, reused every generation
+    private final double[] workIm;
+    private int totalAliveCells;
+
+    public SmoothLifeEngine( double[][] field , SmoothLifeRule rule ) {
+        this.rule = rule;
+        rows = field.length;
+        cols = field[ 0 ].length;
+        rowFft = new Fft( cols );
+        colFft = new Fft( rows );
+        this.field = new double[ rows * cols ];
+        workRe = new double[ rows * cols ];
+        workIm = new double[ rows * cols ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                double value = field[ i ][ j ];
+                if ( value < 0 || value > 1 ) {
+                    throw new IllegalArgumentException( "Field values must be in [0, 1]: " + value );
+                }
+                this.field[ i * cols + j ] = value;
+                if ( value >= 0.5 ) {
+                    totalAliveCells++;
+                }
+            }
+        }
+
+        // Transform the disk and the ring separately (both real), then pack them into one complex kernel
+
+        double[] diskRe = new double[ rows * cols ];
+        double[] diskIm = new double[ rows * cols ];
+        double[] ringRe = new double[ rows * cols ];
+        double[] ringIm = new double[ rows * cols ];
+        buildKernels( diskRe , ringRe );
+        transform( diskRe , diskIm , false );
+        transform( ringRe , ringIm , false );
+
+        kernelRe = new double[ rows * cols ];
+        kernelIm = new double[ rows * cols ];
+        for ( int k = 0; k < rows * cols; k++ ){
+            kernelRe[ k ] = diskRe[ k ] - ringIm[ k ];
+            kernelIm[ k ] = diskIm[ k ] + ringRe[ k ];
+        }
+    }
+
+    // Starts from grid, ALIVE cells at 1 and DEAD ones at 0
+
+    public SmoothLifeEngine( boolean[][] grid , SmoothLifeRule rule ) {
+        this( toField( grid ) , rule );
+    }
+
+    public void step() {
+        System.arraycopy( field , 0 , workRe , 0 , field.length );
+        Arrays.fill( workIm , 0 );
+        transform( workRe , workIm , false );
+        for ( int k = 0; k < field.length; k++ ){
+            double r = workRe[ k ] * kernelRe[ k ] - workIm[ k ] * kernelIm[ k ];
+            double i = workRe[ k ] * kernelIm[ k ] + workIm[ k ] * kernelRe[ k ];
+            workRe[ k ] = r;
+            workIm[ k ] = i;
+        }
+        transform( workRe , workIm , true );
+
+        // Now workRe holds the disk averages m and workIm the ring averages n
+
+        totalAliveCells = IntStream.range( 0 , rows ).parallel().map( i -> {
+            int count = 0;
+            for ( int k = i * cols; k < ( i + 1 ) * cols; k++ ){
+                field[ k ] = rule.next( field[ k ] , workRe[ k ] , workIm[ k ] );
+                if ( field[ k ] >= 0.5 ) {
+                    count++;
+                }
+            }
+            return count;
+        } ).sum();
+    }
+
+    public boolean getCell( int row , int col ) {
+        return field[ row * cols + col ] >= 0.5;
+    }
+
+    // Returns the value of the cell at (row,col)
+
+    public double getValue( int row , int col ) {
+        return field[ row * cols + col ];
+    }
+
+    public int getTotalAliveCells() {
+        return totalAliveCells;
+    }
+
+    // Returns the sum of the field, the continuous counterpart of the number of alive cells
+
+    public double getMass() {
+        double mass = 0;
+        for ( double value : field ){
+            mass += value;
+        }
+        return mass;
+    }
+
+    public SmoothLifeRule getRule() {
+        return rule;
+    }
+
+    public boolean[][] toGrid() {
+        boolean[][] grid = new boolean[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                grid[ i ][ j ] = getCell( i , j );
+            }
+        }
+        return grid;
+    }
+
+    // Returns a copy of the field
+
+    public double[][] toField() {
+        double[][] copy = new double[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            System.arraycopy( field , i * cols , copy[ i ] , 0 , cols );
+        }
+        return copy;
+    }
+
+    // 2D transform in place: every row in parallel, then every column in parallel
+
+    private void transform( double[] re , double[] im , boolean inverse ) {
+        IntStream.range( 0 , rows ).parallel().forEach( i -> rowFft.transform( re , im , i * cols , 1 , inverse ) );
+        IntStream.range( 0 , cols ).parallel().forEach( j -> colFft.transform( re , im , j , cols , inverse ) );
+    }
+
+    /**
+     * Writes the disk (radius ri) and ring (ri to ra) kernels centered on cell (0,0), wrapped around the
+     * board and each scaled to sum to 1. Cells on the edge of a circle get the fraction of them inside it
+     * (approximated as radius + 1/2 - distance) so the kernels don't jump as the radius changes.
+     */
+
+    private void buildKernels( double[] disk , double[] ring ) {
+        double ri = rule.getInnerRadius();
+        double ra = rule.getOuterRadius();
+        int reach = ( int ) Math.ceil( ra + 0.5 );
+        double diskArea = 0;
+        double ringArea = 0;
+
+        for ( int dy = -reach; dy <= reach; dy++ ){
+            for ( int dx = -reach; dx <= reach; dx++ ){
+                double distance = Math.sqrt( dy * dy + dx * dx );
+                double inner = clamp( ri + 0.5 - distance );
+                double outer = clamp( ra + 0.5 - distance ) - inner;
+                int k = Math.floorMod( dy , rows ) * cols + Math.floorMod( dx , cols );
+                disk[ k ] += inner;
+                ring[ k ] += outer;
+                diskArea += inner;
+                ringArea += outer;
+            }
+        }
+
+        for ( int k = 0; k < disk.length; k++ ){
+            disk[ k ] /= diskArea;
+            ring[ k ] /= ringArea;
+        }
+    }
+
+    private static double clamp( double x ) {
+        return Math.max( 0 , Math.min( 1 , x ) );
+    }
+
+    private static double[][] toField( boolean[][] grid ) {
+        double[][] field = new double[ grid.length ][ grid[ 0 ].length ];
+        for ( int i = 0; i < grid.length; i++ ){
+            for ( int j = 0; j < grid[ 0 ].length; j++ ){
+                field[ i ][ j ] = grid[ i ][ j ] ? 1 : 0;
+            }
+        }
+        return field;
+    }
+}
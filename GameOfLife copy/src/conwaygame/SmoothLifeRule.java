@@ -0,0 +1,78 @@
+package conwaygame;
+
+/**
+ * Parameters of a SmoothLife rule (Rafler's continuous generalization of Life).
+ *
+ * A cell looks at m, the average of the field over a disk of radius outerRadius / 3 around it
+ * (its "inner" state), and n, the average over the ring between that disk and outerRadius (its
+ * neighborhood). It is born if n lies in [birthLow, birthHigh] and survives if n lies in
+ * [deathLow, deathHigh], with both intervals blended by m and all the edges smoothed by
+ * sigmoids of width alphaN (for n) and alphaM (for m).
+ *
+ * With dt = 0 the transition replaces the field every generation (discrete time). Otherwise the
+ * field moves dt * ( 2s - 1 ) towards it (smooth time), clamped to [0, 1].
+ */
+
+public final class SmoothLifeRule {
+
+    public static final SmoothLifeRule DEFAULT = new SmoothLifeRule( 21 , 0.278 , 0.365 , 0.267 , 0.445 , 0.028 , 0.147 , 0 );
+
+    private final double outerRadius;
+    private final double birthLow, birthHigh;
+    private final double deathLow, deathHigh;
+    private final double alphaN, alphaM;
+    private final double dt;
+
+    public SmoothLifeRule( double outerRadius , double birthLow , double birthHigh , double deathLow , double deathHigh ,
+                           double alphaN , double alphaM , double dt ) {
+        if ( outerRadius < 3 ) {
+            throw new IllegalArgumentException( "Outer radius must be at least 3: " + outerRadius );
+        }
+        this.outerRadius = outerRadius;
+        this.birthLow = birthLow;
+        this.birthHigh = birthHigh;
+        this.deathLow = deathLow;
+        this.deathHigh = deathHigh;
+        this.alphaN = alphaN;
+        this.alphaM = alphaM;
+        this.dt = dt;
+    }
+
+    public double getOuterRadius() {
+        return outerRadius;
+    }
+
+    public double getInnerRadius() {
+        return outerRadius / 3;
+    }
+
+    public double getDt() {
+        return dt;
+    }
+
+    /**
+     * Returns the value of a cell next generation from its current value f and its inner (m) and
+     * neighborhood (n) averages.
+     */
+
+    public double next( double f , double m , double n ) {
+        double aliveness = sigmoid( m , 0.5 , alphaM );
+        double low = birthLow * ( 1 - aliveness ) + deathLow * aliveness;
+        double high = birthHigh * ( 1 - aliveness ) + deathHigh * aliveness;
+        double s = sigmoid( n , low , alphaN ) * ( 1 - sigmoid( n , high , alphaN ) );
+
+        if ( dt == 0 ) {
+            return s;
+        }
+        return Math.max( 0 , Math.min( 1 , f + dt * ( 2 * s - 1 ) ) );
+    }
+
+    private static double sigmoid( double x , double a , double alpha ) {
+        return 1 / ( 1 + Math.exp( -( x - a ) * 4 / alpha ) );
+    }
+
+    public String toString() {
+        return "SmoothLife ra=" + outerRadius + " b=" + birthLow + ".." + birthHigh + " d=" + deathLow + ".." + deathHigh
+             + " alpha=" + alphaN + "/" + alphaM + " dt=" + dt;
+    }
+}
@@ -0,0 +1,140 @@
+package conwaygame;
+
+/**
+ * Engine for huge boards that are mostly dead.
+ *
+ * Only the alive cells are stored, as (row,col) packed into one long, in a LongHashSet.
+ * Each generation every alive cell adds one to the count of each of its 8 neighbors,
+ * and only the cells that received a count can be alive next generation. The work
+ * and memory per generation grow with the population instead of rows x cols. The tables shrink
+ * again when the population drops, so a few gliders left after a big soup don't pay for the soup's tables.
+ * With Boundary.DEAD neighbors past the edges are left out instead of wrapping.
+ *
+ * B0 rules would bring every isolated dead cell to life, which no sparse board survives, so they are rejected.
+ */
+
+public class SparseEngine implements LifeEngine {
+
+    private final int rows;
+    private final int cols;
+    private LongHashSet alive; // The current generation
+    private LongHashSet next; // Scratch set the next generation is built in
+    private final LongCountMap neighbors; // Number of alive neighbors of every cell next to an alive cell
+    private final boolean torus;
+    private final Rule rule;
+
+    public SparseEngine( boolean[][] grid ) {
+        this( grid , Boundary.TORUS , Rule.CONWAY );
+    }
+
+    public SparseEngine( boolean[][] grid , Boundary boundary , Rule rule ) {
+        if ( rule.bornWithoutNeighbors() ) {
+            throw new IllegalArgumentException( "SparseEngine can't run a B0 rule: " + rule );
+        }
+        this.rule = rule;
+        torus = boundary == Boundary.TORUS;
+        rows = grid.length;
+        cols = grid[ 0 ].length;
+        alive = new LongHashSet( 16 );
+
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                if ( grid[ i ][ j ] ) {
+                    alive.add( pack( i , j ) );
+                }
+            }
+        }
+        next = new LongHashSet( alive.size() );
+        neighbors = new LongCountMap( alive.size() * 4 );
+    }
+
+    public void step() {
+        neighbors.clear( alive.size() * 4 );
+        for ( int slot = 0; slot < alive.capacity(); slot++ ){
+            long cell = alive.keyAt( slot );
+            if ( cell == LongHashSet.EMPTY ) {
+                continue;
+            }
+            int row = ( int ) ( cell >>> 32 );
+            int col = ( int ) cell;
+            if ( !torus ) {
+                countBoundedNeighbors( row , col );
+                continue;
+            }
+            int up = row > 0 ? row - 1 : rows - 1;
+            int down = row < rows - 1 ? row + 1 : 0;
+            int left = col > 0 ? col - 1 : cols - 1;
+            int right = col < cols - 1 ? col + 1 : 0;
+
+            neighbors.increment( pack( up , left ) );
+            neighbors.increment( pack( up , col ) );
+            neighbors.increment( pack( up , right ) );
+            neighbors.increment( pack( row , left ) );
+            neighbors.increment( pack( row , right ) );
+            neighbors.increment( pack( down , left ) );
+            neighbors.increment( pack( down , col ) );
+            neighbors.increment( pack( down , right ) );
+        }
+
+        next.clear( alive.size() );
+        for ( int slot = 0; slot < neighbors.capacity(); slot++ ){
+            long cell = neighbors.keyAt( slot );
+            if ( cell == LongHashSet.EMPTY ) {
+                continue;
+            }
+            if ( rule.next( alive.contains( cell ) , neighbors.countAt( slot ) ) ) {
+                next.add( cell );
+            }
+        }
+
+        // With S0 alive cells that have no alive neighbors (so never got a count) survive too
+
+        if ( rule.next( true , 0 ) ) {
+            for ( int slot = 0; slot < alive.capacity(); slot++ ){
+                long cell = alive.keyAt( slot );
+                if ( cell != LongHashSet.EMPTY && !neighbors.contains( cell ) ) {
+                    next.add( cell );
+                }
+            }
+        }
+
+        LongHashSet temp = alive;
+        alive = next;
+        next = temp;
+    }
+
+    public boolean getCell( int row , int col ) {
+        return alive.contains( pack( row , col ) );
+    }
+
+    public int getTotalAliveCells() {
+        return alive.size();
+    }
+
+    public boolean[][] toGrid() {
+        boolean[][] grid = new boolean[ rows ][ cols ];
+        for ( int slot = 0; slot < alive.capacity(); slot++ ){
+            long cell = alive.keyAt( slot );
+            if ( cell != LongHashSet.EMPTY ) {
+                grid[ ( int ) ( cell >>> 32 ) ][ ( int ) cell ] = true;
+            }
+        }
+        return grid;
+    }
+
+    // Adds one to the count of each neighbor of (row,col) that is on the board
+
+    private void countBoundedNeighbors( int row , int col ) {
+        for ( int r = Math.max( row - 1 , 0 ); r <= Math.min( row + 1 , rows - 1 ); r++ ){
+            for ( int c = Math.max( col - 1 , 0 ); c <= Math.min( col + 1 , cols - 1 ); c++ ){
+                if ( r != row || c != col ) {
+                    neighbors.increment( pack( r , c ) );
+                }
+            }
+        }
+    }
+
+    private static long pack( int row , int col ) {
+        return ( ( long ) row << 32 ) | ( col & 0xFFFFFFFFL );
+    }
+}
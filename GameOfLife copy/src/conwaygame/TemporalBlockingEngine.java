@@ -0,0 +1,246 @@
+package conwaygame;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Engine that advances every tile several generations at a time before the tiles synchronize.
+ *
+ * The board is cut into tiles. For a block of k generations each tile copies itself plus a
+ * k cell halo (from the opposite edges on a torus, dead with Boundary.DEAD) out of the shared board
+ * into a small local buffer. It then steps that buffer k times with HaloEngine's kernel. After each
+ * generation one more ring of the halo is out of date, so the region stepped shrinks by one cell on
+ * every side, and after k generations exactly the tile itself is correct. That is written into the
+ * shared next board.
+ *
+ * The shared board is read and written once per block instead of once per generation, and the tiles
+ * only wait for each other at the end of a block, so both memory traffic and synchronization drop by
+ * about a factor of k. The price is recomputing the halo, ( ( tile + 2k ) / tile )^2 - 1 extra work,
+ * small when the tile is much larger than k.
+ */
+
+public class TemporalBlockingEngine implements LifeEngine {
+
+    public static final int DEFAULT_TILE_SIZE = 128;
+    public static final int DEFAULT_DEPTH = 8;
+
+    private final int rows;
+    private final int cols;
+    private final int tileSize;
+    private final int depth; // Generations per block, k
+    private final int tileRows; // Number of tiles down and across
+    private final int tileCols;
+    private final boolean torus;
+    private final Rule rule;
+    private final ForkJoinPool pool;
+    private byte[] current; // The current generation, cell (row,col) at row * cols + col
+    private byte[] next;
+    private int totalAliveCells;
+
+    // Local buffers of the thread running a tile, sized for the deepest block
+
+    private final ThreadLocal<byte[][]> buffers;
+
+    public TemporalBlockingEngine( boolean[][] grid , Boundary boundary , Rule rule ) {
+        this( grid , boundary , rule , DEFAULT_TILE_SIZE , DEFAULT_DEPTH , ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * Creates the engine with tiles of tileSize x tileSize cells, advanced depth generations per block on pool.
+     */
+
+    public TemporalBlockingEngine( boolean[][] grid , Boundary boundary , Rule rule , int tileSize , int depth , ForkJoinPool pool ) {
+        if ( tileSize < 1 || depth < 1 ) {
+            throw new IllegalArgumentException( "Tile size and depth must be at least 1: " + tileSize + ", " + depth );
+        }
+        this.rule = rule;
+        this.tileSize = tileSize;
+        this.depth = depth;
+        this.pool = pool;
+        torus = boundary == Boundary.TORUS;
+        rows = grid.length;
+        cols = grid[ 0 ].length;
+        tileRows = ( rows + tileSize - 1 ) / tileSize;
+        tileCols = ( cols + tileSize - 1 ) / tileSize;
+        current = new byte[ rows * cols ];
+        next = new byte[ rows * cols ];
+
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                if ( grid[ i ][ j ] ) {
+                    current[ i * cols + j ] = 1;
+                    totalAliveCells++;
+                }
+            }
+        }
+
+        int side = tileSize + 2 * depth;
+        buffers = ThreadLocal.withInitial( () -> new byte[][]{ new byte[ side * side ] , new byte[ side * side ] } );
+    }
+
+    public void step() {
+        block( 1 );
+    }
+
+    // Runs n generations in blocks of depth, the last block shorter if depth doesn't divide n
+
+    public void step( int n ) {
+        for ( int done = 0; done < n; done += depth ){
+            block( Math.min( depth , n - done ) );
+        }
+    }
+
+    public boolean getCell( int row , int col ) {
+        return current[ row * cols + col ] != 0;
+    }
+
+    public int getTotalAliveCells() {
+        return totalAliveCells;
+    }
+
+    public boolean[][] toGrid() {
+        boolean[][] grid = new boolean[ rows ][ cols ];
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                grid[ i ][ j ] = current[ i * cols + j ] != 0;
+            }
+        }
+        return grid;
+    }
+
+    // Advances every tile k generations from current into next, then swaps them
+
+    private void block( int k ) {
+        totalAliveCells = pool.invoke( new TileTask( k , 0 , tileRows * tileCols ) );
+        byte[] temp = current;
+        current = next;
+        next = temp;
+    }
+
+    /**
+     * Runs tiles from..to - 1 (numbered row by row), splitting the range in half down to single tiles.
+     */
+
+    private class TileTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int k;
+        private final int from;
+        private final int to;
+
+        TileTask( int k , int from , int to ) {
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected Integer compute() {
+            if ( to - from == 1 ) {
+                return advanceTile( from / tileCols , from % tileCols , k );
+            }
+            int middle = ( from + to ) >>> 1;
+            TileTask first = new TileTask( k , from , middle );
+            first.fork();
+            int second = new TileTask( k , middle , to ).compute();
+            return first.join() + second;
+        }
+    }
+
+    /**
+     * Advances one tile k generations in the calling thread's local buffers and writes it into next.
+     * @return int number of alive cells in the tile afterwards
+     */
+
+    private int advanceTile( int tileRow , int tileCol , int k ) {
+        int row0 = tileRow * tileSize;
+        int col0 = tileCol * tileSize;
+        int height = Math.min( tileSize , rows - row0 ) + 2 * k;
+        int width = Math.min( tileSize , cols - col0 ) + 2 * k;
+
+        byte[][] local = buffers.get();
+        byte[] cells = local[ 0 ];
+        byte[] out = local[ 1 ];
+
+        // Local cell (r,c) is board cell (row0 - k + r, col0 - k + c)
+
+        for ( int r = 0; r < height; r++ ){
+            copyRow( row0 - k + r , col0 - k , width , cells , r * width );
+        }
+
+        for ( int g = 1; g <= k; g++ ){
+            for ( int r = g; r < height - g; r++ ){
+                int start = r * width + g;
+                HaloEngine.stepRow( cells , out , start , start + width - 2 * g , width , rule );
+            }
+            if ( !torus ) {
+                clearOutside( out , row0 - k , col0 - k , height , width , g );
+            }
+            byte[] temp = cells;
+            cells = out;
+            out = temp;
+        }
+
+        // Only the tile itself is still valid, write it back
+
+        int count = 0;
+        for ( int r = k; r < height - k; r++ ){
+            int start = r * width + k;
+            int length = width - 2 * k;
+            System.arraycopy( cells , start , next , ( row0 - k + r ) * cols + col0 , length );
+            for ( int c = start; c < start + length; c++ ){
+                count += cells[ c ];
+            }
+        }
+        return count;
+    }
+
+    // Copies length cells of board row row starting at column col (both may be off the board) into target at offset
+
+    private void copyRow( int row , int col , int length , byte[] target , int offset ) {
+        if ( !torus && ( row < 0 || row >= rows ) ) {
+            Arrays.fill( target , offset , offset + length , ( byte ) 0 );
+            return;
+        }
+        int base = Math.floorMod( row , rows ) * cols;
+        while ( length > 0 ) {
+            int c = Math.floorMod( col , cols );
+            int run = Math.min( length , cols - c );
+            if ( torus || ( col >= 0 && col < cols ) ) {
+                System.arraycopy( current , base + c , target , offset , run );
+            } else {
+
+                // Off the board with Boundary.DEAD: dead up to the edge
+
+                run = col < 0 ? Math.min( length , -col ) : length;
+                Arrays.fill( target , offset , offset + run , ( byte ) 0 );
+            }
+            col += run;
+            offset += run;
+            length -= run;
+        }
+    }
+
+    /**
+     * With Boundary.DEAD, kills the cells of generation g's region that lie off the board, the kernel
+     * would otherwise let them come to life. The local buffer starts at board cell (top,left).
+     */
+
+    private void clearOutside( byte[] cells , int top , int left , int height , int width , int g ) {
+        for ( int r = g; r < height - g; r++ ){
+            int row = top + r;
+            int start = r * width;
+            if ( row < 0 || row >= rows ) {
+                Arrays.fill( cells , start + g , start + width - g , ( byte ) 0 );
+                continue;
+            }
+            if ( left + g < 0 ) {
+                Arrays.fill( cells , start + g , start - left , ( byte ) 0 );
+            }
+            if ( left + width - g > cols ) {
+                Arrays.fill( cells , start + Math.max( g , cols - left ) , start + width - g , ( byte ) 0 );
+            }
+        }
+    }
+}
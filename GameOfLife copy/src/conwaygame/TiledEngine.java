@@ -0,0 +1,220 @@
+package conwaygame;
+
+import java.util.Arrays;
+
+/**
+ * Engine that splits the board into square tiles and only recomputes tiles that can change.
+ *
+ * Every tile carries a flag saying whether any of its cells changed in the last generation.
+ * A tile whose own flag and whose 8 neighbors' flags are all clear is surrounded by exactly
+ * the same cells as last time, so it is skipped. Because the two buffers are swapped every
+ * generation, the buffer being written already holds the generation before last, which for
+ * a skipped tile is the same as the current one, so skipping costs nothing at all.
+ * With Boundary.DEAD tiles and cells past the edges count as dead and unchanged.
+ */
+
+public class TiledEngine implements LifeEngine {
+
+    public static final int DEFAULT_TILE_SIZE = 32;
+
+    private final int rows;
+    private final int cols;
+    private final int tileSize;
+    private final int tileRows; // Number of tiles down the board
+    private final int tileCols; // Number of tiles across the board
+
+    private boolean[][] current; // The current generation
+    private boolean[][] next; // Holds the generation before current until it is overwritten
+    private boolean[] changed; // changed[ t ] is true if tile t changed in the last generation
+    private boolean[] nextChanged;
+    private final int[] tileAlive; // Number of alive cells in each tile
+    private int totalAliveCells;
+
+    private int computedTiles; // Tiles recomputed in the last generation
+    private int skippedTiles; // Tiles skipped in the last generation
+    private long totalComputedTiles;
+    private long totalSkippedTiles;
+
+    private final boolean torus;
+    private final boolean[] deadRow; // Stands in for the rows past the top and bottom edges with Boundary.DEAD
+    private final byte[] nextState; // Rule.nextStateTable() of the rule being run
+
+    public TiledEngine( boolean[][] grid ) {
+        this( grid , DEFAULT_TILE_SIZE , Boundary.TORUS , Rule.CONWAY );
+    }
+
+    public TiledEngine( boolean[][] grid , Boundary boundary , Rule rule ) {
+        this( grid , DEFAULT_TILE_SIZE , boundary , rule );
+    }
+
+    public TiledEngine( boolean[][] grid , int tileSize ) {
+        this( grid , tileSize , Boundary.TORUS , Rule.CONWAY );
+    }
+
+    public TiledEngine( boolean[][] grid , int tileSize , Boundary boundary , Rule rule ) {
+        if ( tileSize < 1 ) {
+            throw new IllegalArgumentException( "Tile size must be at least 1: " + tileSize );
+        }
+        torus = boundary == Boundary.TORUS;
+        nextState = rule.nextStateTable();
+        rows = grid.length;
+        cols = grid[ 0 ].length;
+        deadRow = new boolean[ cols ];
+        this.tileSize = tileSize;
+        tileRows = ( rows + tileSize - 1 ) / tileSize;
+        tileCols = ( cols + tileSize - 1 ) / tileSize;
+
+        current = new boolean[ rows ][ cols ];
+        next = new boolean[ rows ][ cols ];
+        changed = new boolean[ tileRows * tileCols ];
+        nextChanged = new boolean[ tileRows * tileCols ];
+        tileAlive = new int[ tileRows * tileCols ];
+
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                current[ i ][ j ] = grid[ i ][ j ];
+                if ( grid[ i ][ j ] ) {
+                    tileAlive[ ( i / tileSize ) * tileCols + j / tileSize ]++;
+                    totalAliveCells++;
+                }
+            }
+        }
+
+        // Nothing is known about the first generation, so every tile starts out dirty
+
+        Arrays.fill( changed , true );
+    }
+
+    public void step() {
+        computedTiles = 0;
+        skippedTiles = 0;
+
+        for ( int ti = 0; ti < tileRows; ti++ ){
+            for ( int tj = 0; tj < tileCols; tj++ ){
+                int tile = ti * tileCols + tj;
+                if ( neighborhoodChanged( ti , tj ) ) {
+                    nextChanged[ tile ] = computeTile( ti , tj );
+                    computedTiles++;
+                } else {
+                    nextChanged[ tile ] = false;
+                    skippedTiles++;
+                }
+            }
+        }
+        totalComputedTiles += computedTiles;
+        totalSkippedTiles += skippedTiles;
+
+        boolean[][] temp = current;
+        current = next;
+        next = temp;
+        boolean[] tempChanged = changed;
+        changed = nextChanged;
+        nextChanged = tempChanged;
+    }
+
+    public boolean getCell( int row , int col ) {
+        return current[ row ][ col ];
+    }
+
+    public int getTotalAliveCells() {
+        return totalAliveCells;
+    }
+
+    public boolean[][] toGrid() {
+        boolean[][] grid = new boolean[ rows ][];
+        for ( int i = 0; i < rows; i++ ){
+            grid[ i ] = current[ i ].clone();
+        }
+        return grid;
+    }
+
+    // Returns the number of tiles recomputed in the last generation
+
+    public int getComputedTiles() {
+        return computedTiles;
+    }
+
+    // Returns the number of tiles skipped in the last generation
+
+    public int getSkippedTiles() {
+        return skippedTiles;
+    }
+
+    // Returns the number of tiles recomputed over every generation so far
+
+    public long getTotalComputedTiles() {
+        return totalComputedTiles;
+    }
+
+    // Returns the number of tiles skipped over every generation so far
+
+    public long getTotalSkippedTiles() {
+        return totalSkippedTiles;
+    }
+
+    // Returns true if tile (ti,tj) or any of its 8 neighbors (wrapping around the torus) changed last generation
+
+    private boolean neighborhoodChanged( int ti , int tj ) {
+        for ( int di = -1; di <= 1; di++ ){
+            if ( !torus && ( ti + di < 0 || ti + di >= tileRows ) ) {
+                continue;
+            }
+            int row = Math.floorMod( ti + di , tileRows );
+            for ( int dj = -1; dj <= 1; dj++ ){
+                if ( !torus && ( tj + dj < 0 || tj + dj >= tileCols ) ) {
+                    continue;
+                }
+                if ( changed[ row * tileCols + Math.floorMod( tj + dj , tileCols ) ] ) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the next generation of tile (ti,tj) into next.
+     * @return true if any cell in the tile changed
+     */
+
+    private boolean computeTile( int ti , int tj ) {
+        int rowStart = ti * tileSize;
+        int rowEnd = Math.min( rowStart + tileSize , rows );
+        int colStart = tj * tileSize;
+        int colEnd = Math.min( colStart + tileSize , cols );
+        boolean anyChanged = false;
+        int count = 0;
+
+        for ( int i = rowStart; i < rowEnd; i++ ){
+            boolean[] up = i > 0 ? current[ i - 1 ] : torus ? current[ rows - 1 ] : deadRow;
+            boolean[] row = current[ i ];
+            boolean[] down = i < rows - 1 ? current[ i + 1 ] : torus ? current[ 0 ] : deadRow;
+            boolean[] out = next[ i ];
+
+            for ( int j = colStart; j < colEnd; j++ ){
+                int left = j > 0 ? j - 1 : cols - 1;
+                int right = j < cols - 1 ? j + 1 : 0;
+                int numberOfNeighbors = ( up[ j ] ? 1 : 0 ) + ( down[ j ] ? 1 : 0 );
+                if ( j > 0 || torus ) {
+                    numberOfNeighbors += ( up[ left ] ? 1 : 0 ) + ( row[ left ] ? 1 : 0 ) + ( down[ left ] ? 1 : 0 );
+                }
+                if ( j < cols - 1 || torus ) {
+                    numberOfNeighbors += ( up[ right ] ? 1 : 0 ) + ( row[ right ] ? 1 : 0 ) + ( down[ right ] ? 1 : 0 );
+                }
+                boolean isAlive = nextState[ ( row[ j ] ? 16 : 0 ) | numberOfNeighbors ] != 0;
+                out[ j ] = isAlive;
+                if ( isAlive != row[ j ] ) {
+                    anyChanged = true;
+                }
+                if ( isAlive ) {
+                    count++;
+                }
+            }
+        }
+
+        int tile = ti * tileCols + tj;
+        totalAliveCells += count - tileAlive[ tile ];
+        tileAlive[ tile ] = count;
+        return anyChanged;
+    }
+}
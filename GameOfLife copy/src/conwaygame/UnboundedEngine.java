@@ -0,0 +1,246 @@
+package conwaygame;
+
+/**
+ * Engine for an unbounded plane instead of a torus, so gliders and guns never run into themselves.
+ *
+ * Cells are bit-packed like BitPackedEngine in a block of storage that covers the live bounding box
+ * plus a dead margin. Before each generation the margin is checked: if a live cell is next to
+ * the edge of the storage, the storage grows on that side by a large chunk (GROW_CELLS, or half
+ * the size of the pattern if that is bigger), and when the pattern has shrunk far inside it, it is cut back down.
+ * Because the margin is always dead, BitKernel's torus wraparound only ever sees dead cells.
+ *
+ * Coordinates are those of the board the engine was created from and may go negative.
+ * getCell/toGrid/getTotalAliveCells look at that original rows x cols window, getPopulation(),
+ * getBoundingBox() and isAlive() cover the whole plane, so a glider that has left the window still counts as alive.
+ *
+ * Rules where dead cells with no neighbors are born (B0) would fill the whole plane, so they are rejected.
+ */
+
+public class UnboundedEngine implements LifeEngine {
+
+    private static final int GROW_CELLS = 64; // Smallest margin added on a side, a multiple of 64
+
+    private final int rows; // Size of the original board, the window toGrid() shows
+    private final int cols;
+
+    private long[][] current; // Storage, cell (row,col) is bit (col - originCol) of row (row - originRow)
+    private long[][] next;
+    private int originRow; // Plane coordinates of storage cell (0,0)
+    private int originCol;
+
+    private long population;
+    private int windowCount = -1; // Alive cells in the original window, -1 until someone asks this generation
+    private int minRow, minCol, maxRow, maxCol; // Live bounding box in plane coordinates, empty if population is 0
+    private final Rule rule;
+
+    public UnboundedEngine( boolean[][] grid ) {
+        this( grid , Rule.CONWAY );
+    }
+
+    public UnboundedEngine( boolean[][] grid , Rule rule ) {
+        if ( rule.bornWithoutNeighbors() ) {
+            throw new IllegalArgumentException( "An unbounded plane can't run a B0 rule: " + rule );
+        }
+        this.rule = rule;
+        rows = grid.length;
+        cols = grid[ 0 ].length;
+        originRow = -GROW_CELLS;
+        originCol = -GROW_CELLS;
+        int words = ( cols + 2 * GROW_CELLS + 63 ) >>> 6;
+        current = new long[ rows + 2 * GROW_CELLS ][ words ];
+        next = new long[ rows + 2 * GROW_CELLS ][ words ];
+
+        for ( int i = 0; i < rows; i++ ){
+            for ( int j = 0; j < cols; j++ ){
+                if ( grid[ i ][ j ] ) {
+                    int c = j - originCol;
+                    current[ i - originRow ][ c >>> 6 ] |= 1L << c;
+                }
+            }
+        }
+        findBoundingBox();
+    }
+
+    public void step() {
+        if ( population == 0 ) {
+            return;
+        }
+        fitStorage();
+
+        int height = current.length;
+        int width = current[ 0 ].length * 64;
+        for ( int i = 0; i < height; i++ ){
+            long[] up = current[ i > 0 ? i - 1 : height - 1 ];
+            long[] down = current[ i < height - 1 ? i + 1 : 0 ];
+            BitKernel.stepRow( up , current[ i ] , down , next[ i ] , width , true , rule );
+        }
+
+        long[][] temp = current;
+        current = next;
+        next = temp;
+        findBoundingBox();
+        windowCount = -1;
+    }
+
+    public boolean getCell( int row , int col ) {
+        int r = row - originRow;
+        int c = col - originCol;
+        if ( r < 0 || r >= current.length || c < 0 || c >= current[ 0 ].length * 64 ) {
+            return false;
+        }
+        return ( ( current[ r ][ c >>> 6 ] >>> c ) & 1L ) != 0;
+    }
+
+    // Number of alive cells inside the original window, counted a word at a time when first asked for each generation
+
+    public int getTotalAliveCells() {
+        if ( windowCount < 0 ) {
+            int from = Math.max( 0 , -originCol ); // Window columns in storage
+            int to = Math.min( current[ 0 ].length * 64 , cols - originCol );
+            int count = 0;
+            for ( int r = Math.max( 0 , -originRow ); r < Math.min( current.length , rows - originRow ); r++ ){
+                count += countBits( current[ r ] , from , to );
+            }
+            windowCount = count;
+        }
+        return windowCount;
+    }
+
+    // Returns true if anything is alive on the plane, not just in the window
+
+    public boolean isAlive() {
+        return population > 0;
+    }
+
+    public boolean[][] toGrid() {
+        return toGrid( 0 , 0 , rows , cols );
+    }
+
+    /**
+     * Returns the cells of the plane in the given window, its top left corner at (row,col).
+     */
+
+    public boolean[][] toGrid( int row , int col , int height , int width ) {
+        boolean[][] grid = new boolean[ height ][ width ];
+        for ( int i = 0; i < height; i++ ){
+            for ( int j = 0; j < width; j++ ){
+                grid[ i ][ j ] = getCell( row + i , col + j );
+            }
+        }
+        return grid;
+    }
+
+    // Returns the number of alive cells anywhere on the plane
+
+    public long getPopulation() {
+        return population;
+    }
+
+    /**
+     * Returns the live bounding box as { minRow, minCol, maxRow, maxCol } (inclusive), or null if nothing is alive.
+     */
+
+    public int[] getBoundingBox() {
+        return population == 0 ? null : new int[]{ minRow , minCol , maxRow , maxCol };
+    }
+
+    // Returns the number of cells currently backed by storage
+
+    public long getStorageCells() {
+        return ( long ) current.length * current[ 0 ].length * 64;
+    }
+
+    // Counts the set bits from..to - 1 of row
+
+    private static int countBits( long[] row , int from , int to ) {
+        if ( from >= to ) {
+            return 0;
+        }
+        int first = from >>> 6;
+        int last = ( to - 1 ) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> ( 63 - ( ( to - 1 ) & 63 ) );
+        if ( first == last ) {
+            return Long.bitCount( row[ first ] & firstMask & lastMask );
+        }
+        int count = Long.bitCount( row[ first ] & firstMask ) + Long.bitCount( row[ last ] & lastMask );
+        for ( int k = first + 1; k < last; k++ ){
+            count += Long.bitCount( row[ k ] );
+        }
+        return count;
+    }
+
+    // Recounts the population and bounding box from the storage
+
+    private void findBoundingBox() {
+        population = 0;
+        int top = Integer.MAX_VALUE, left = Integer.MAX_VALUE, bottom = -1, right = -1;
+
+        for ( int i = 0; i < current.length; i++ ){
+            long[] row = current[ i ];
+            for ( int k = 0; k < row.length; k++ ){
+                if ( row[ k ] != 0 ) {
+                    population += Long.bitCount( row[ k ] );
+                    top = Math.min( top , i );
+                    bottom = i;
+                    left = Math.min( left , k * 64 + Long.numberOfTrailingZeros( row[ k ] ) );
+                    right = Math.max( right , k * 64 + 63 - Long.numberOfLeadingZeros( row[ k ] ) );
+                }
+            }
+        }
+
+        minRow = top + originRow;
+        maxRow = bottom + originRow;
+        minCol = left + originCol;
+        maxCol = right + originCol;
+    }
+
+    /**
+     * Makes sure there is at least one dead row and column between the live cells and the edge of the storage,
+     * growing (or, if the pattern is much smaller than the storage, shrinking) it in large chunks.
+     */
+
+    private void fitStorage() {
+        int height = current.length;
+        int words = current[ 0 ].length;
+        int top = minRow - originRow;
+        int bottom = height - 1 - ( maxRow - originRow );
+        int left = minCol - originCol;
+        int right = words * 64 - 1 - ( maxCol - originCol );
+
+        boolean tooSmall = top < 1 || bottom < 1 || left < 1 || right < 1;
+        boolean tooBig = height > 4 * ( maxRow - minRow + 1 + 2 * GROW_CELLS )
+                      || words * 64 > 4 * ( maxCol - minCol + 1 + 2 * GROW_CELLS );
+        if ( !tooSmall && !tooBig ) {
+            return;
+        }
+
+        // New margins: keep a side that is fine, otherwise use a big chunk
+
+        int liveRows = maxRow - minRow + 1;
+        int liveCols = maxCol - minCol + 1;
+        int rowChunk = Math.max( GROW_CELLS , liveRows / 2 );
+        int colChunk = Math.max( GROW_CELLS , ( liveCols / 2 + 63 ) & ~63 );
+        int newTop = top < 1 || tooBig ? rowChunk : top;
+        int newBottom = bottom < 1 || tooBig ? rowChunk : bottom;
+
+        // Columns move in whole words so rows can be copied with System.arraycopy
+
+        int firstWord = Math.floorDiv( left , 64 ); // Old word holding the leftmost live cell
+        int lastWord = Math.floorDiv( words * 64 - 1 - right , 64 );
+        int newLeftWords = left < 1 || tooBig ? colChunk / 64 : firstWord;
+        int newRightWords = right < 1 || tooBig ? colChunk / 64 : words - 1 - lastWord;
+
+        int newHeight = newTop + liveRows + newBottom;
+        int newWords = newLeftWords + ( lastWord - firstWord + 1 ) + newRightWords;
+        long[][] grown = new long[ newHeight ][ newWords ];
+        for ( int i = 0; i < liveRows; i++ ){
+            System.arraycopy( current[ top + i ] , firstWord , grown[ newTop + i ] , newLeftWords , lastWord - firstWord + 1 );
+        }
+
+        originRow = minRow - newTop;
+        originCol = originCol + ( firstWord - newLeftWords ) * 64;
+        current = grown;
+        next = new long[ newHeight ][ newWords ];
+    }
+}
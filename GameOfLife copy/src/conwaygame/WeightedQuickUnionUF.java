@@ -1,70 +1,173 @@
 package conwaygame;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
 /*
  * Weighted Quick Union
+ *
+ * Sites are numbered 0..n-1. For a grid, cell (i,j) is site i*numOfColumns + j, and the (row,col)
+ * methods convert to that. parent and size are flat arrays, find() halves the path it walks
+ * (every site on it is pointed at its grandparent), and union() hangs the smaller tree under
+ * the larger one, so every operation is nearly constant time and none of them allocates.
+ * addSite() adds one more site at the end, growing the arrays when they are full, so a
+ * union-find can start empty and get one site per label as the labels are handed out,
+ * and reset( n ) starts it over with n sites so the arrays can be used again.
+ *
+ * findConcurrent() and unionConcurrent() may be called from many threads at once. They link roots
+ * with compare-and-set (always the higher site under the lower one, so no cycles can form) and do not
+ * keep size or count() up to date. Don't mix them with the plain methods while other threads are running.
  */
 public class WeightedQuickUnionUF {
 
-    private int[][] parent, size;
-    private int rows;
-    private int cols;
-    // Each parent[i][j] will contain i*numOfColumns + j
-    // Going from i,j to this value is common, so convert and invert do this
-    
-    public WeightedQuickUnionUF ( int r, int c ){
-        rows = r;
+    private static final VarHandle PARENT = MethodHandles.arrayElementVarHandle( int[].class );
+
+    private int[] parent; // parent[p] is the site above p, roots are their own parent
+    private int[] size; // size[root] is the number of sites in its tree
+    private int sites; // Number of sites, the arrays may be longer
+    private final int cols;
+    private int count; // Number of separate sets
+
+    // n sites, each in a set of its own
+
+    public WeightedQuickUnionUF ( int n ) {
+        this( 1 , n );
+    }
+
+    // One site per cell of an r by c grid, each in a set of its own
+
+    public WeightedQuickUnionUF ( int r, int c ) {
         cols = c;
-        parent = new int[rows][cols];
-        size = new int[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                parent[i][j] = convert(i, j);
-                size[i][j] = 1;
-            }
+        count = r * c;
+        sites = count;
+        parent = new int[count];
+        size = new int[count];
+        for (int p = 0; p < count; p++) {
+            parent[p] = p;
+            size[p] = 1;
         }
     }
-    
+
+    // Adds a site in a set of its own and returns it
+
+    public int addSite () {
+        if ( sites == parent.length ) {
+            int capacity = Math.max( 16, sites * 2 );
+            parent = Arrays.copyOf( parent, capacity );
+            size = Arrays.copyOf( size, capacity );
+        }
+        parent[sites] = sites;
+        size[sites] = 1;
+        count++;
+        return sites++;
+    }
+
+    // Returns the number of sites
+
+    public int sites () {
+        return sites;
+    }
+
+    // Keeps only sites 0..n-1 and puts each of them back in a set of its own
+
+    public void reset ( int n ) {
+        sites = 0;
+        count = 0;
+        while ( sites < n ) {
+            addSite();
+        }
+    }
+
+    // Returns the site of cell (i,j)
+
+    public int index ( int i, int j ) {
+        return i * cols + j;
+    }
+
+    // Returns the root of the set cell (i,j) is in, as a site
+
     public int find ( int i, int j ) {
-        int[] dims = new int[]{i, j};
-        int curParent = parent[i][j];
-        while ( convert ( dims[0], dims[1] ) != curParent ) {
-            dims = invert(curParent);
-            curParent = parent[dims[0]][dims[1]];
+        return find( index( i, j ) );
+    }
+
+    // Returns the root of the set site p is in
+
+    public int find ( int p ) {
+        while ( parent[p] != p ) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
         }
-        return curParent;
+        return p;
     }
 
-    public void union ( int r1, int c1, int r2, int c2 ) {
-        
-        int root1 = find(r1, c1);
-        int root2 = find(r2, c2);
-        
-        if(root1 == root2) return;
+    // Merges the sets of cells (r1,c1) and (r2,c2), returns false if they were already the same set
+
+    public boolean union ( int r1, int c1, int r2, int c2 ) {
+        return union( index( r1, c1 ), index( r2, c2 ) );
+    }
+
+    // Merges the sets of sites p and q, returns false if they were already the same set
+
+    public boolean union ( int p, int q ) {
+        int root1 = find(p);
+        int root2 = find(q);
+
+        if(root1 == root2) return false;
 
         // root2 is supposed to be the root of the larger tree
         // If root1 is the root of the larger tree, swap them
-        if ( size ( root1 )  >= size ( root2 ) ) {
+        if ( size[root1] > size[root2] ) {
             int temp = root1;
             root1 = root2;
             root2 = temp;
         }
 
-        // root2 is the root of the larget tree
-        int[] invRoot1 = invert ( root1 );
-        int[] invRoot2 = invert ( root2 );
-        parent[invRoot1[0]][invRoot1[1]] = root2;
-        size[invRoot2[0]][invRoot2[1]]  += size ( root1 );
+        parent[root1] = root2;
+        size[root2] += size[root1];
+        count--;
+        return true;
     }
 
-    private int convert ( int a, int b ) {
-        return a * cols + b;
+    // Returns true if sites p and q are in the same set
+
+    public boolean connected ( int p, int q ) {
+        return find(p) == find(q);
+    }
+
+    // Returns the number of separate sets
+
+    public int count () {
+        return count;
     }
 
-    private int[] invert ( int val ) {
-        return new int[]{(val - val % cols) / cols, val % cols};
+    // Same as find( p ) but safe while other threads call findConcurrent() and unionConcurrent()
+
+    public int findConcurrent ( int p ) {
+        while ( true ) {
+            int q = (int) PARENT.getVolatile( parent, p );
+            if ( q == p ) return p;
+            int r = (int) PARENT.getVolatile( parent, q );
+            if ( r == q ) return q;
+            PARENT.compareAndSet( parent, p, q, r ); // Path halving, fine to lose the race
+            p = r;
+        }
     }
 
-    private int size ( int val ) {
-        int[] result = invert( val );
-        return size[result[0]][result[1]];
+    // Same as union( p, q ) but safe while other threads call findConcurrent() and unionConcurrent()
+
+    public boolean unionConcurrent ( int p, int q ) {
+        while ( true ) {
+            int root1 = findConcurrent(p);
+            int root2 = findConcurrent(q);
+            if ( root1 == root2 ) return false;
+            if ( root1 < root2 ) {
+                int temp = root1;
+                root1 = root2;
+                root2 = temp;
+            }
+            if ( PARENT.compareAndSet( parent, root1, root1, root2 ) ) return true;
+            // root1 got linked by another thread in the meantime, look again
+        }
     }
-}
\ No newline at end of file
+}